@@ -4,6 +4,7 @@ import com.bervan.common.search.SearchRequest;
 import com.bervan.common.search.SearchService;
 import com.bervan.common.search.model.Operator;
 import com.bervan.common.search.model.SearchOperation;
+import com.bervan.common.search.model.SortDirection;
 import com.bervan.common.service.AuthService;
 import com.bervan.common.service.BaseService;
 import com.bervan.common.user.User;
@@ -12,12 +13,12 @@ import com.bervan.logging.JsonLogger;
 import jakarta.annotation.PostConstruct;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 
@@ -47,13 +48,18 @@ public class AsyncTaskService extends BaseService<UUID, AsyncTask> {
     public void timeoutCheck() {
         log.info("Starting timeout check");
         LocalDateTime now = LocalDateTime.now();
-        Set<AsyncTask> asyncTasks = queryNotFinishedTasks();
-        for (AsyncTask asyncTask : asyncTasks) {
+        List<AsyncTask> timedOutTasks = new ArrayList<>();
+        forEachNotFinishedTask(asyncTask -> {
             if (asyncTask.getStartDate() != null && asyncTask.getTimeoutInMin() != null
                     && asyncTask.getStartDate().plusMinutes(asyncTask.getTimeoutInMin()).isBefore(now)) {
-                log.info("Timeout for task {} reached", asyncTask.getId());
-                setFailed(asyncTask, "Timeout reached");
+                timedOutTasks.add(asyncTask);
             }
+        });
+
+        // tasks are updated after the scan, the scan runs in a read only transaction
+        for (AsyncTask asyncTask : timedOutTasks) {
+            log.info("Timeout for task {} reached", asyncTask.getId());
+            setFailed(asyncTask, "Timeout reached");
         }
     }
 
@@ -88,13 +94,13 @@ public class AsyncTaskService extends BaseService<UUID, AsyncTask> {
         return queryTaskNotificationFromDatabase().getOrDefault(userId, Collections.emptyList());
     }
 
-    private Set<AsyncTask> queryNotFinishedTasks() {
+    private void forEachNotFinishedTask(Consumer<AsyncTask> action) {
         SearchRequest searchRequest = new SearchRequest();
         searchRequest.setAddOwnerCriterion(false);
         searchRequest.addCriterion("TASK_NOTIFICATION_GROUP", Operator.OR_OPERATOR, AsyncTask.class, "status", SearchOperation.EQUALS_OPERATION, "NEW");
         searchRequest.addCriterion("TASK_NOTIFICATION_GROUP", Operator.OR_OPERATOR, AsyncTask.class, "status", SearchOperation.EQUALS_OPERATION, "IN_PROGRESS");
 
-        return load(searchRequest, Pageable.ofSize(50000));
+        forEach(searchRequest, "id", SortDirection.ASC, action);
     }
 
     private Map<UUID, List<AsyncTask>> queryTaskNotificationFromDatabase() {
@@ -104,15 +110,14 @@ public class AsyncTaskService extends BaseService<UUID, AsyncTask> {
         searchRequest.addCriterion("TASK_NOTIFICATION_GROUP", Operator.AND_OPERATOR, AsyncTask.class, "status", SearchOperation.NOT_EQUALS_OPERATION, "NEW");
         searchRequest.addCriterion("TASK_NOTIFICATION_GROUP", Operator.AND_OPERATOR, AsyncTask.class, "status", SearchOperation.NOT_EQUALS_OPERATION, "IN_PROGRESS");
 
-        Set<AsyncTask> loaded = load(searchRequest, Pageable.ofSize(50000));
-
-        return loaded.stream()
-                .flatMap(task -> task.getOwners().stream()
-                        .map(user -> Map.entry(user.getId(), task)))
-                .collect(Collectors.groupingBy(
-                        Map.Entry::getKey,
-                        Collectors.mapping(Map.Entry::getValue, Collectors.toList())
-                ));
+        // owners are read while the task is attached, rows are detached when the stream clears the persistence context
+        Map<UUID, List<AsyncTask>> notifications = new HashMap<>();
+        forEach(searchRequest, "id", SortDirection.ASC, task -> {
+            for (User user : task.getOwners()) {
+                notifications.computeIfAbsent(user.getId(), userId -> new ArrayList<>()).add(task);
+            }
+        });
+        return notifications;
 
     }
 
@@ -3,11 +3,13 @@ package com.bervan.common;
 import com.bervan.common.model.BervanHistoryOwnedEntity;
 import com.bervan.common.model.BervanOwnedBaseEntity;
 import com.bervan.common.model.PersistableData;
+import com.bervan.common.search.SearchResultCache;
 import com.bervan.common.user.User;
 import com.bervan.history.model.AbstractBaseHistoryEntity;
 import com.bervan.history.model.BaseRepositoryImpl;
 import jakarta.persistence.EntityManager;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.Hibernate;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.security.access.prepost.PostFilter;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -57,23 +59,19 @@ public class BervanBaseRepositoryImpl<T extends PersistableData<ID>, ID extends
             }
         }
 
+        SearchResultCache.entityChanged(Hibernate.getClass(entity));
         return super.save(entity);
     }
 
     private <S extends T> void trimStringValues(S entity) {
-        for (Field field : entity.getClass().getDeclaredFields()) {
-            if (field.getType() == String.class) {
-                field.setAccessible(true);
-                try {
-                    String value = (String) field.get(entity);
-                    if (value != null) {
-                        field.set(entity, value.trim()); // Trim the value and set it back
-                    }
-                } catch (IllegalAccessException e) {
-
-                } finally {
-                    field.setAccessible(false);
+        for (Field field : EntityMetadataRegistry.get(entity.getClass()).getStringFields()) {
+            try {
+                String value = (String) field.get(entity);
+                if (value != null) {
+                    field.set(entity, value.trim()); // Trim the value and set it back
                 }
+            } catch (IllegalAccessException e) {
+
             }
         }
     }
@@ -87,6 +85,7 @@ public class BervanBaseRepositoryImpl<T extends PersistableData<ID>, ID extends
                 ownedBaseEntity.addOwner(user);
             }
         }
+        SearchResultCache.entityChanged(Hibernate.getClass(entity));
         return super.saveWithoutHistory(entity);
     }
 
@@ -123,6 +122,7 @@ public class BervanBaseRepositoryImpl<T extends PersistableData<ID>, ID extends
     @Override
     @PreAuthorize("hasRole('USER')")
     public void delete(T entity) {
+        SearchResultCache.entityChanged(Hibernate.getClass(entity));
         super.delete(entity);
     }
 }
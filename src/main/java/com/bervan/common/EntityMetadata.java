@@ -0,0 +1,209 @@
+package com.bervan.common;
+
+import com.bervan.common.model.BervanOwnedBaseEntity;
+import com.bervan.common.model.FullTextSearchable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Reflection data of a single class, computed once by {@link EntityMetadataRegistry}.
+ * Fields are made accessible when the metadata is built - callers must not toggle accessibility of the returned fields.
+ */
+public class EntityMetadata {
+    private static final String DELETED_FIELD = "deleted";
+    private static final String ID_FIELD = "id";
+
+    private final Class<?> type;
+    private final Map<String, Field> fields;
+    private final List<String> availableFieldNames;
+    private final List<Field> stringFields;
+    private final List<Field> fullTextFields;
+    private final Set<String> indexedFields;
+    private final Set<String> nonNullableFields;
+    private final boolean softDeletable;
+    private final boolean owned;
+    private final Map<String, Field> resolvedPaths = new ConcurrentHashMap<>();
+
+    EntityMetadata(Class<?> type) {
+        this.type = type;
+
+        Map<String, Field> fields = new LinkedHashMap<>();
+        List<String> availableFieldNames = new ArrayList<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (field.isSynthetic() || Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                availableFieldNames.add(field.getName());
+                // fields hidden by a subclass field with the same name are reachable only through the subclass one
+                if (!fields.containsKey(field.getName())) {
+                    field.setAccessible(true);
+                    fields.put(field.getName(), field);
+                }
+            }
+        }
+        this.fields = Collections.unmodifiableMap(fields);
+        this.fullTextFields = fields.values().stream()
+                .filter(field -> field.isAnnotationPresent(FullTextSearchable.class))
+                .toList();
+        this.availableFieldNames = List.copyOf(availableFieldNames);
+
+        // only fields declared on the class itself are trimmed on save and checked for soft delete
+        List<Field> stringFields = new ArrayList<>();
+        boolean softDeletable = false;
+        for (Field field : type.getDeclaredFields()) {
+            if (field.isSynthetic() || Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            if (field.getType() == String.class && !Modifier.isFinal(field.getModifiers())) {
+                stringFields.add(fields.get(field.getName()));
+            }
+            if (field.getName().equals(DELETED_FIELD)) {
+                softDeletable = true;
+            }
+        }
+        this.stringFields = List.copyOf(stringFields);
+        this.softDeletable = softDeletable;
+        this.owned = BervanOwnedBaseEntity.class.isAssignableFrom(type);
+        this.indexedFields = Collections.unmodifiableSet(collectIndexedFields(type));
+        this.nonNullableFields = fields.values().stream()
+                .filter(EntityMetadata::isNonNullable)
+                .map(Field::getName)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private static boolean isNonNullable(Field field) {
+        if (field.getName().equals(ID_FIELD) || field.isAnnotationPresent(Id.class) || field.getType().isPrimitive()) {
+            return true;
+        }
+        Column column = field.getAnnotation(Column.class);
+        return column != null && !column.nullable();
+    }
+
+    private static Set<String> collectIndexedFields(Class<?> type) {
+        Set<String> indexedFields = new HashSet<>();
+        indexedFields.add(ID_FIELD);
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            Table table = current.getAnnotation(Table.class);
+            if (table == null) {
+                continue;
+            }
+            for (Index index : table.indexes()) {
+                indexedFields.add(index.columnList().split(",")[0].trim().split("\\s+")[0]);
+            }
+        }
+        return indexedFields;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Field with the given name declared on the class or any of its superclasses, null when it does not exist.
+     */
+    public Field getField(String name) {
+        return fields.get(name);
+    }
+
+    public Field getRequiredField(String name) throws NoSuchFieldException {
+        Field field = fields.get(name);
+        if (field == null) {
+            throw new NoSuchFieldException(name + " in " + type.getName());
+        }
+        return field;
+    }
+
+    public Collection<Field> getFields() {
+        return fields.values();
+    }
+
+    /**
+     * Names of all non static fields, including superclass fields, in declaration order.
+     */
+    public List<String> getAvailableFieldNames() {
+        return availableFieldNames;
+    }
+
+    /**
+     * Non final String fields declared on the class itself.
+     */
+    public List<Field> getStringFields() {
+        return stringFields;
+    }
+
+    /**
+     * Fields annotated with {@link FullTextSearchable}, including superclass fields.
+     */
+    public List<Field> getFullTextFields() {
+        return fullTextFields;
+    }
+
+    public boolean isSoftDeletable() {
+        return softDeletable;
+    }
+
+    public boolean isOwned() {
+        return owned;
+    }
+
+    /**
+     * True for the id and for leading columns of {@link Index}es declared in {@link Table} annotations of the class hierarchy.
+     */
+    public boolean isIndexed(String fieldName) {
+        return indexedFields.contains(fieldName);
+    }
+
+    /**
+     * True for the id, primitive fields and fields mapped with @Column(nullable = false) - columns that never hold NULL.
+     */
+    public boolean isNonNullable(String fieldName) {
+        return nonNullableFields.contains(fieldName);
+    }
+
+    /**
+     * Resolves a dotted path (e.g. "owners.id") to the last field of the path. Collection fields are followed through
+     * their element type. When the nested type does not declare the field, the path is resolved against this class,
+     * as the search request may reference inherited attributes of the searched entity.
+     */
+    public Field resolvePath(String path) throws NoSuchFieldException {
+        Field resolved = resolvedPaths.get(path);
+        if (resolved != null) {
+            return resolved;
+        }
+
+        String[] subObjects = path.split("\\.");
+        Field field = getRequiredField(subObjects[0]);
+        for (int i = 1; i < subObjects.length; i++) {
+            Field nested = EntityMetadataRegistry.get(getTargetType(field)).getField(subObjects[i]);
+            field = nested != null ? nested : getRequiredField(subObjects[i]);
+        }
+
+        resolvedPaths.put(path, field);
+        return field;
+    }
+
+    private static Class<?> getTargetType(Field field) {
+        if (Collection.class.isAssignableFrom(field.getType()) && field.getGenericType() instanceof ParameterizedType parameterizedType) {
+            Type elementType = parameterizedType.getActualTypeArguments()[0];
+            if (elementType instanceof Class<?> elementClass) {
+                return elementClass;
+            }
+        }
+        return field.getType();
+    }
+
+    public Object getValue(Object instance, String fieldName) throws NoSuchFieldException, IllegalAccessException {
+        return getRequiredField(fieldName).get(instance);
+    }
+}
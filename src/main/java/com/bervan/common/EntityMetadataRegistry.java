@@ -0,0 +1,68 @@
+package com.bervan.common;
+
+import com.bervan.logging.JsonLogger;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnit;
+import jakarta.persistence.metamodel.ManagedType;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Central cache of class introspection used on hot paths (search, soft delete and ownership checks, trimming on save).
+ * Metadata of all managed JPA types is computed on startup, other classes (DTOs, embeddables not known to the
+ * metamodel) are computed on first use.
+ */
+@Component
+public class EntityMetadataRegistry {
+    private static final Map<Class<?>, EntityMetadata> METADATA = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Map<String, Enum<?>>> ENUM_CONSTANTS = new ConcurrentHashMap<>();
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "common");
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    public static EntityMetadata get(Class<?> type) {
+        EntityMetadata metadata = METADATA.get(type);
+        if (metadata == null) {
+            metadata = METADATA.computeIfAbsent(type, EntityMetadata::new);
+        }
+        return metadata;
+    }
+
+    /**
+     * Enum constants by name.
+     */
+    public static Map<String, Enum<?>> getEnumConstants(Class<?> enumType) {
+        return ENUM_CONSTANTS.computeIfAbsent(enumType, EntityMetadataRegistry::buildEnumConstants);
+    }
+
+    private static Map<String, Enum<?>> buildEnumConstants(Class<?> enumType) {
+        Map<String, Enum<?>> constants = new HashMap<>();
+        for (Object constant : enumType.getEnumConstants()) {
+            constants.put(((Enum<?>) constant).name(), (Enum<?>) constant);
+        }
+        return Collections.unmodifiableMap(constants);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        int registered = 0;
+        for (ManagedType<?> managedType : entityManagerFactory.getMetamodel().getManagedTypes()) {
+            Class<?> javaType = managedType.getJavaType();
+            if (javaType == null || javaType == Map.class) {
+                continue;
+            }
+            EntityMetadata metadata = get(javaType);
+            metadata.getFields().stream()
+                    .filter(field -> field.getType().isEnum())
+                    .forEach(field -> ENUM_CONSTANTS.computeIfAbsent(field.getType(), EntityMetadataRegistry::buildEnumConstants));
+            registered++;
+        }
+        log.info("Entity metadata registered for " + registered + " managed types.");
+    }
+}
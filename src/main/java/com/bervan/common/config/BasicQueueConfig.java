@@ -9,6 +9,7 @@ import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
 import org.springframework.amqp.rabbit.listener.RabbitListenerContainerFactory;
 import org.springframework.amqp.support.converter.DefaultJackson2JavaTypeMapper;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -56,4 +57,23 @@ public class BasicQueueConfig {
 
         return factory;
     }
+
+    /**
+     * Container of LOGS_QUEUE consumers: messages are delivered in batches of up to bervan.logging.listener.batch-size,
+     * a smaller batch is delivered when no message arrives for bervan.logging.listener.receive-timeout-ms.
+     */
+    @Bean
+    public RabbitListenerContainerFactory<?> logsListenerContainerFactory(CachingConnectionFactory connectionFactory,
+                                                                          @Value("${bervan.logging.listener.batch-size:200}") int batchSize,
+                                                                          @Value("${bervan.logging.listener.receive-timeout-ms:500}") long receiveTimeout,
+                                                                          @Value("${bervan.logging.listener.prefetch:400}") int prefetch) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeout);
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        return factory;
+    }
 }
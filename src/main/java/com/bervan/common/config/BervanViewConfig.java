@@ -10,6 +10,20 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 public class BervanViewConfig extends HashMap<String, Map<String, ClassViewAutoConfigColumn>> {
+    private final Map<String, Integer> resultCacheTtlSeconds = new HashMap<>();
+
+    public Integer getResultCacheTtlSeconds(Class<?> tClass) {
+        return resultCacheTtlSeconds.get(tClass.getSimpleName());
+    }
+
+    public void setResultCacheTtlSeconds(String className, Integer ttlSeconds) {
+        if (ttlSeconds == null) {
+            resultCacheTtlSeconds.remove(className);
+        } else {
+            resultCacheTtlSeconds.put(className, ttlSeconds);
+        }
+    }
+
     public Set<String> getFieldNames(Class<?> tClass) {
         if (!containsKey(tClass.getSimpleName())) {
             return Set.of();
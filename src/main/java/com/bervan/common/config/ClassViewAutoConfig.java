@@ -9,4 +9,5 @@ import java.util.List;
 @Setter
 public class ClassViewAutoConfig {
     private List<ClassViewAutoConfigColumn> columns;
+    private Integer resultCacheTtlSeconds; // search results cached by SearchResultCache, not cached when empty
 }
@@ -26,6 +26,7 @@ public class ClassViewAutoConfigColumn {
     private boolean required = false;
     private boolean dynamicStrValues = false;
     private boolean sortable; // needs to be updated in yaml file!
+    private boolean trigramIndexed; // contains filter served by TrigramIndex, for short columns with few distinct values
     private Integer min;
     private Integer max;
 
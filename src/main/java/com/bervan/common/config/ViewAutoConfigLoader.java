@@ -42,6 +42,7 @@ public class ViewAutoConfigLoader {
                 String className = filename.replace(".yml", "");
                 configs.put(className, new HashMap<>());
                 config.getColumns().forEach(column -> configs.get(className).put(column.getField(), column));
+                configs.setResultCacheTtlSeconds(className, config.getResultCacheTtlSeconds());
             }
         }
 
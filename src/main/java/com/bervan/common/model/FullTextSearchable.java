@@ -0,0 +1,15 @@
+package com.bervan.common.model;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a text column searched with a FULLTEXT index instead of LIKE '%value%' when bervan.search.fulltext.enabled is set.
+ * Values are then matched as word prefixes ("err" finds "error", "rror" does not), see {@link com.bervan.common.search.FullTextSearch}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface FullTextSearchable {
+}
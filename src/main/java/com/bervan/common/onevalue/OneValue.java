@@ -2,6 +2,7 @@ package com.bervan.common.onevalue;
 
 import com.bervan.common.model.BaseOneValue;
 import com.bervan.common.model.BervanOwnedBaseEntity;
+import com.bervan.common.model.FullTextSearchable;
 import com.bervan.common.model.PersistableData;
 import com.bervan.history.model.HistoryCollection;
 import com.bervan.history.model.HistorySupported;
@@ -28,6 +29,7 @@ public class OneValue extends BervanOwnedBaseEntity<UUID> implements BaseOneValu
     @Lob
     @Size(max = 5000000)
     @Column(columnDefinition = "LONGTEXT")
+    @FullTextSearchable
     private String content;
     private LocalDateTime modificationDate;
     private boolean deleted;
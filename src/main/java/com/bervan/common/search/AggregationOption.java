@@ -0,0 +1,91 @@
+package com.bervan.common.search;
+
+import com.bervan.common.search.model.Aggregate;
+import com.bervan.common.search.model.TimeBucket;
+import com.bervan.history.model.AbstractBaseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shape of an aggregation done by {@link SearchService#aggregate}: rows matching the request are grouped by the
+ * group by fields (and by time bucket of the time field when set) and aggregates are computed for every group.
+ * Fields can be paths through to-one relations ("owner.username").
+ */
+public class AggregationOption {
+    private Class<? extends AbstractBaseEntity> entityToFind;
+    private List<String> groupBy = new ArrayList<>();
+    private List<Aggregate> aggregates = new ArrayList<>(List.of(Aggregate.count()));
+    private String timeField;
+    private TimeBucket timeBucket;
+    private int maxBuckets = 1000;
+
+    public AggregationOption() {
+
+    }
+
+    public AggregationOption(Class<? extends AbstractBaseEntity> entityToFind) {
+        this.entityToFind = entityToFind;
+    }
+
+    public Class<? extends AbstractBaseEntity> getEntityToFind() {
+        return entityToFind;
+    }
+
+    public void setEntityToFind(Class<? extends AbstractBaseEntity> entityToFind) {
+        this.entityToFind = entityToFind;
+    }
+
+    public List<String> getGroupBy() {
+        return groupBy;
+    }
+
+    public void setGroupBy(List<String> groupBy) {
+        this.groupBy = new ArrayList<>(groupBy);
+    }
+
+    public List<Aggregate> getAggregates() {
+        return aggregates;
+    }
+
+    /**
+     * Aggregates computed for every bucket, count only by default.
+     */
+    public void setAggregates(List<Aggregate> aggregates) {
+        this.aggregates = new ArrayList<>(aggregates);
+    }
+
+    public String getTimeField() {
+        return timeField;
+    }
+
+    public TimeBucket getTimeBucket() {
+        return timeBucket;
+    }
+
+    /**
+     * Additionally groups rows by the start of the time bucket the date / date time field falls into.
+     */
+    public void setTimeBucket(String timeField, TimeBucket timeBucket) {
+        this.timeField = timeField;
+        this.timeBucket = timeBucket;
+    }
+
+    public int getMaxBuckets() {
+        return maxBuckets;
+    }
+
+    /**
+     * Maximal number of returned buckets, 1000 by default.
+     */
+    public void setMaxBuckets(int maxBuckets) {
+        this.maxBuckets = maxBuckets;
+    }
+
+    /**
+     * Part of the plan key - everything that changes the shape of the aggregation query.
+     */
+    String shapeKey() {
+        return "A:" + groupBy + aggregates + ":" + timeField + ":" + timeBucket;
+    }
+}
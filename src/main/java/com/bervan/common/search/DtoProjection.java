@@ -0,0 +1,83 @@
+package com.bervan.common.search;
+
+import jakarta.persistence.Tuple;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Describes a projection type used by {@link SearchService#searchProjection}: a Java record (selected with a constructor
+ * expression, components in declaration order) or an interface with getters (selected as a tuple and exposed through a proxy).
+ * Property names must match entity attribute names.
+ */
+public class DtoProjection {
+    private static final Map<Class<?>, List<String>> PROPERTIES = new ConcurrentHashMap<>();
+
+    public static List<String> getProperties(Class<?> projectionType) {
+        return PROPERTIES.computeIfAbsent(projectionType, DtoProjection::resolveProperties);
+    }
+
+    private static List<String> resolveProperties(Class<?> projectionType) {
+        List<String> properties = new ArrayList<>();
+        if (projectionType.isRecord()) {
+            for (RecordComponent component : projectionType.getRecordComponents()) {
+                properties.add(component.getName());
+            }
+        } else if (projectionType.isInterface()) {
+            for (Method method : projectionType.getMethods()) {
+                if (isGetter(method)) {
+                    properties.add(getPropertyName(method));
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("Projection type must be a record or an interface: " + projectionType.getName());
+        }
+
+        if (properties.isEmpty()) {
+            throw new IllegalArgumentException("Projection type does not declare any property: " + projectionType.getName());
+        }
+        return List.copyOf(properties);
+    }
+
+    private static boolean isGetter(Method method) {
+        return method.getParameterCount() == 0 && !method.isDefault()
+                && !Modifier.isStatic(method.getModifiers()) && method.getReturnType() != void.class;
+    }
+
+    private static String getPropertyName(Method method) {
+        String name = method.getName();
+        if (name.startsWith("get") && name.length() > 3) {
+            return Character.toLowerCase(name.charAt(3)) + name.substring(4);
+        }
+        if (name.startsWith("is") && name.length() > 2 && (method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class)) {
+            return Character.toLowerCase(name.charAt(2)) + name.substring(3);
+        }
+        return name;
+    }
+
+    public static <R> R createInterfaceProjection(Class<R> projectionType, Tuple tuple) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> projectionType.getSimpleName() + tuple.getElements().stream()
+                            .map(e -> e.getAlias() + "=" + tuple.get(e.getAlias()))
+                            .toList();
+                };
+            }
+            if (method.isDefault()) {
+                return InvocationHandler.invokeDefault(proxy, method, args);
+            }
+            return tuple.get(getPropertyName(method));
+        };
+        return (R) Proxy.newProxyInstance(projectionType.getClassLoader(), new Class[]{projectionType}, handler);
+    }
+}
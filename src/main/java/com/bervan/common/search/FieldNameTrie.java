@@ -0,0 +1,62 @@
+package com.bervan.common.search;
+
+import java.util.*;
+
+/**
+ * Case-insensitive prefix tree of the field names of one entity, used for query completions.
+ * Built once per entity and read-only afterwards, so it can be shared between sessions.
+ */
+public class FieldNameTrie {
+    private final Node root = new Node();
+
+    public FieldNameTrie(Collection<String> fieldNames) {
+        for (String fieldName : fieldNames) {
+            Node node = root;
+            for (int i = 0; i < fieldName.length(); i++) {
+                node = node.children.computeIfAbsent(Character.toLowerCase(fieldName.charAt(i)), c -> new Node());
+            }
+            node.fieldName = fieldName;
+        }
+    }
+
+    /**
+     * Field names starting with the prefix (ignoring case), in alphabetical order.
+     */
+    public List<String> complete(String prefix, int limit) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(Character.toLowerCase(prefix.charAt(i)));
+        }
+
+        List<String> result = new ArrayList<>();
+        if (node != null) {
+            collect(node, result, limit);
+        }
+        return result;
+    }
+
+    public boolean contains(String fieldName) {
+        Node node = root;
+        for (int i = 0; i < fieldName.length() && node != null; i++) {
+            node = node.children.get(Character.toLowerCase(fieldName.charAt(i)));
+        }
+        return node != null && node.fieldName != null;
+    }
+
+    private static void collect(Node node, List<String> result, int limit) {
+        if (result.size() >= limit) {
+            return;
+        }
+        if (node.fieldName != null) {
+            result.add(node.fieldName);
+        }
+        for (Node child : node.children.values()) {
+            collect(child, result, limit);
+        }
+    }
+
+    private static class Node {
+        private final SortedMap<Character, Node> children = new TreeMap<>();
+        private String fieldName;
+    }
+}
@@ -0,0 +1,20 @@
+package com.bervan.common.search;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers fulltext_match(column, query) as MySQL MATCH (column) AGAINST (query IN BOOLEAN MODE), the relevance of the row.
+ * Registered through META-INF/services.
+ */
+public class FullTextFunctionContributor implements FunctionContributor {
+    public static final String FULLTEXT_MATCH_FUNCTION = "fulltext_match";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        functionContributions.getFunctionRegistry().registerPattern(FULLTEXT_MATCH_FUNCTION,
+                "match (?1) against (?2 in boolean mode)",
+                functionContributions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.DOUBLE));
+    }
+}
@@ -0,0 +1,127 @@
+package com.bervan.common.search;
+
+import com.bervan.common.EntityMetadata;
+import com.bervan.common.EntityMetadataRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnit;
+import jakarta.persistence.metamodel.EntityType;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes contains (~) criteria on {@link com.bervan.common.model.FullTextSearchable} fields to MySQL FULLTEXT indexes.
+ * Disabled by default (bervan.search.fulltext.enabled). On startup missing FULLTEXT indexes are created,
+ * a field is searched with MATCH ... AGAINST only when its index exists - otherwise LIKE is used as before.
+ * The index is maintained by the database on every insert and update, no additional work is done on save.
+ * <p>
+ * Full text matching is by word prefix, not substring: 'Exception' matches "Exception in thread" but not
+ * "NullPointerException". Values without any word of at least 3 characters are searched with LIKE.
+ */
+@Component
+public class FullTextSearch {
+    private static final int MIN_TOKEN_SIZE = 3;
+    private final Logger log = LoggerFactory.getLogger(FullTextSearch.class);
+    private final Set<String> indexedFields = ConcurrentHashMap.newKeySet();
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private SearchQueryPlanCache planCache;
+    @Value("${bervan.search.fulltext.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * Converts a contains value (with or without % wildcards) to a boolean mode query requiring every word as a prefix:
+     * "connection refused" -> "+connection* +refused*". Words shorter than the InnoDB minimal token size are not indexed and are skipped,
+     * a value without any longer word gives an empty query matching no rows - see {@link #hasFullTextTerms}.
+     */
+    public static String toBooleanModeQuery(Object value) {
+        List<String> terms = new ArrayList<>();
+        for (String word : String.valueOf(value).split("[^\\p{L}\\p{N}_]+")) {
+            if (word.length() >= MIN_TOKEN_SIZE) {
+                terms.add("+" + word + "*");
+            }
+        }
+        return String.join(" ", terms);
+    }
+
+    /**
+     * Whether the value has a word long enough to be searched in the index, values without one must use LIKE.
+     * Part of the plan key, see {@link SearchQueryPlanCache#buildKey}.
+     */
+    public static boolean hasFullTextTerms(Object value) {
+        return !toBooleanModeQuery(value).isEmpty();
+    }
+
+    public boolean isIndexed(Class<?> entityType, String fieldName) {
+        return enabled && indexedFields.contains(key(entityType, fieldName));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        if (!enabled) {
+            return;
+        }
+
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (EntityType<?> entityType : entityManagerFactory.getMetamodel().getEntities()) {
+            EntityMetadata metadata = EntityMetadataRegistry.get(entityType.getJavaType());
+            for (Field field : metadata.getFullTextFields()) {
+                try {
+                    EntityPersister persister = sessionFactory.getMappingMetamodel().getEntityDescriptor(entityType.getJavaType());
+                    String table = ((AbstractEntityPersister) persister).getTableName();
+                    String column = ((AbstractEntityPersister) persister).getPropertyColumnNames(field.getName())[0];
+                    transactionTemplate.executeWithoutResult(status -> createIndexIfMissing(table, column));
+                    indexedFields.add(key(entityType.getJavaType(), field.getName()));
+                } catch (Exception e) {
+                    log.warn("Full text index for {}.{} is not available, LIKE will be used!", entityType.getName(), field.getName(), e);
+                }
+            }
+        }
+
+        // plans compiled before the indexes were checked use LIKE
+        planCache.invalidateAll();
+        log.info("Full text search enabled for: {}", indexedFields);
+    }
+
+    private void createIndexIfMissing(String table, String column) {
+        Number existing = (Number) entityManager.createNativeQuery("""
+                        select count(*) from information_schema.statistics
+                        where table_schema = database() and table_name = ?1 and column_name = ?2 and index_type = 'FULLTEXT'
+                        """)
+                .setParameter(1, table)
+                .setParameter(2, column)
+                .getSingleResult();
+        if (existing.longValue() == 0) {
+            log.info("Creating full text index on {}.{}", table, column);
+            entityManager.createNativeQuery("alter table " + table + " add fulltext index ft_" + table + "_" + column + " (" + column + ")")
+                    .executeUpdate();
+        }
+    }
+
+    private static String key(Class<?> entityType, String fieldName) {
+        return entityType.getName() + "#" + fieldName;
+    }
+}
@@ -0,0 +1,69 @@
+package com.bervan.common.search;
+
+import jakarta.persistence.criteria.*;
+import jakarta.persistence.metamodel.Attribute;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Plans how criteria on bracketed relations ({@code [relation].field}) and sort paths are applied to one query root:
+ * <ul>
+ *     <li>to-one relations are LEFT joined once and the join is reused by all criteria and sort paths on the relation,
+ *     so rows without the related entity are not dropped (an implicit {@code relation.field} path is an inner join),</li>
+ *     <li>to-many relations are filtered with a correlated EXISTS subquery per criterion, so matching several
+ *     elements of the collection does not multiply rows of the root - no DISTINCT is needed and counts are exact.</li>
+ * </ul>
+ * Every criterion on a to-many relation is evaluated against its own subquery, as it was with a join per criterion:
+ * {@code [owners].id = 1 & [owners].id = 2} matches rows owned by both users.
+ */
+class JoinPlanner {
+    private final CriteriaBuilder criteriaBuilder;
+    private final AbstractQuery<?> query;
+    private final Root<?> root;
+    private final Map<String, Join<?, ?>> toOneJoins = new HashMap<>();
+
+    JoinPlanner(CriteriaBuilder criteriaBuilder, AbstractQuery<?> query, Root<?> root) {
+        this.criteriaBuilder = criteriaBuilder;
+        this.query = query;
+        this.root = root;
+    }
+
+    Predicate apply(String relation, JoinPredicateBuilder predicateBuilder) throws NoSuchFieldException {
+        Attribute<?, ?> attribute = root.getModel().getAttribute(relation);
+        if (!attribute.isCollection()) {
+            Join<?, ?> join = toOneJoins.computeIfAbsent(relation, name -> root.join(name, JoinType.LEFT));
+            return predicateBuilder.build(join, join.getJavaType());
+        }
+
+        Subquery<Integer> subquery = query.subquery(Integer.class);
+        Root<?> correlatedRoot = subquery.correlate(root);
+        Join<?, ?> join = correlatedRoot.join(relation);
+        subquery.select(criteriaBuilder.literal(1))
+                .where(predicateBuilder.build(join, join.getJavaType()));
+        return criteriaBuilder.exists(subquery);
+    }
+
+    /**
+     * Path of a sort field, a leading to-one relation ({@code relation.field}) is reached through its LEFT join.
+     */
+    Path<?> getPath(String field) {
+        String[] names = field.split("\\.", 2);
+        if (names.length == 2 && names[0].equalsIgnoreCase(root.getModel().getBindableJavaType().getSimpleName())) {
+            field = names[1];
+            names = field.split("\\.", 2);
+        }
+        if (names.length == 2) {
+            Attribute<?, ?> attribute = root.getModel().getAttribute(names[0]);
+            if (attribute.isAssociation() && !attribute.isCollection()) {
+                Join<?, ?> join = toOneJoins.computeIfAbsent(names[0], name -> root.join(name, JoinType.LEFT));
+                return SearchOperationsHelper.getExpression(join, names[1]);
+            }
+        }
+        return SearchOperationsHelper.getExpression(root, field);
+    }
+
+    interface JoinPredicateBuilder {
+        Predicate build(From<?, ?> join, Class<?> joinedType) throws NoSuchFieldException;
+    }
+}
@@ -0,0 +1,70 @@
+package com.bervan.common.search;
+
+import com.bervan.common.EntityMetadataRegistry;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps projection rows (values of columnsToFetch) to entity instances.
+ * Constructor and field setters are resolved once per entity + column list and invoked through
+ * {@link MethodHandle}s adapted to a common (Object, Object)void signature, so per row there is no reflective lookup
+ * and no access check.
+ */
+public class ProjectionMapper<T> {
+    private static final Map<String, ProjectionMapper<?>> MAPPERS = new ConcurrentHashMap<>();
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final MethodHandle constructor;
+    private final MethodHandle[] setters;
+    private final boolean[] primitives;
+
+    private ProjectionMapper(Class<T> entity, List<String> columns) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Constructor<T> declaredConstructor = entity.getDeclaredConstructor();
+            declaredConstructor.setAccessible(true);
+            this.constructor = lookup.unreflectConstructor(declaredConstructor).asType(CONSTRUCTOR_TYPE);
+
+            this.setters = new MethodHandle[columns.size()];
+            this.primitives = new boolean[columns.size()];
+            for (int i = 0; i < columns.size(); i++) {
+                Field field = EntityMetadataRegistry.get(entity).getRequiredField(columns.get(i));
+                setters[i] = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+                primitives[i] = field.getType().isPrimitive();
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Could not create projection mapper for " + entity.getName() + " " + columns, e);
+        }
+    }
+
+    public static <T> ProjectionMapper<T> forColumns(Class<T> entity, List<String> columns) {
+        String key = entity.getName() + ":" + String.join(",", columns);
+        return (ProjectionMapper<T>) MAPPERS.computeIfAbsent(key, k -> new ProjectionMapper<>(entity, columns));
+    }
+
+    public T map(Object row) {
+        // single column projections may come back as a plain value
+        Object[] values = row instanceof Object[] array ? array : new Object[]{row};
+        try {
+            Object instance = constructor.invokeExact();
+            for (int i = 0; i < setters.length; i++) {
+                Object value = values[i];
+                if (value == null && primitives[i]) {
+                    continue;
+                }
+                setters[i].invokeExact(instance, value);
+            }
+            return (T) instance;
+        } catch (Throwable e) {
+            throw new RuntimeException("Error mapping row to entity", e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.bervan.common.search;
+
+import com.bervan.common.EntityMetadata;
+import com.bervan.common.EntityMetadataRegistry;
+import com.bervan.common.search.model.CountPolicy;
+import com.bervan.common.search.model.KeysetCursor;
+import com.bervan.common.search.model.SearchResponse;
+import com.bervan.history.model.Persistable;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Iterates all rows of a search in batches, every batch is a separate query read completely before its rows are handed
+ * out - no result set stays open, so eager associations (owners, history) can be loaded with extra selects.
+ * Batches continue after the last row with a keyset cursor when all sort keys are non-nullable, otherwise with
+ * an offset (rows inserted or deleted while iterating may then be skipped or repeated).
+ */
+class SearchBatchIterator<T extends Persistable> implements Iterator<T> {
+    private final SearchQueryOption options = new SearchQueryOption();
+    private final Function<SearchQueryOption, SearchResponse<T>> loader;
+    private final Runnable beforeNextBatch;
+    private final boolean keyset;
+    private Iterator<T> batch = Collections.emptyIterator();
+    private boolean loaded;
+    private boolean lastBatch;
+
+    /**
+     * @param beforeNextBatch run before every batch but the first one (e.g. clearing the persistence context)
+     */
+    SearchBatchIterator(SearchQueryOption options, int batchSize, Function<SearchQueryOption, SearchResponse<T>> loader,
+                        Runnable beforeNextBatch) {
+        this.loader = loader;
+        this.beforeNextBatch = beforeNextBatch;
+        this.options.setEntityToFind(options.getEntityToFind());
+        this.options.setSortKeys(options.getSortKeys());
+        this.options.setColumnsToFetch(options.getColumnsToFetch());
+        this.options.setCountPolicy(CountPolicy.NONE);
+        this.options.setPage(0);
+        this.options.setPageSize(batchSize);
+        EntityMetadata metadata = EntityMetadataRegistry.get(options.getEntityToFind());
+        this.keyset = this.options.getSortKeys().stream().allMatch(sortKey -> metadata.isNonNullable(sortKey.getField()));
+        this.options.setKeysetPagination(keyset);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!batch.hasNext() && !lastBatch) {
+            loadBatch();
+        }
+        return batch.hasNext();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return batch.next();
+    }
+
+    private void loadBatch() {
+        if (loaded) {
+            beforeNextBatch.run();
+        }
+        loaded = true;
+
+        SearchResponse<T> response = loader.apply(options);
+        List<T> rows = response.getResultList();
+        lastBatch = rows.size() < options.getPageSize();
+        if (!lastBatch) {
+            if (keyset) {
+                KeysetCursor cursor = response.getNextPageCursor();
+                if (cursor == null) {
+                    throw new RuntimeException("Could not continue streaming, keyset cursor of the batch is not available!");
+                }
+                options.setKeysetAfter(cursor);
+            } else {
+                options.setPage(options.getPage() + 1);
+            }
+        }
+        batch = rows.iterator();
+    }
+}
@@ -2,6 +2,7 @@ package com.bervan.common.search;
 
 import com.bervan.common.search.model.SearchCriteria;
 import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.From;
 import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
@@ -11,17 +12,30 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Collection;
 
+/**
+ * Criterion values are either plain values or {@link Expression}s (parameters of a compiled query plan).
+ * Parameter values are bound later, so any value transformation (like wildcards) is done when binding.
+ */
 public class SearchOperationsHelper {
 
     public static Predicate notLike(From root, CriteriaBuilder criteriaBuilder, SearchCriteria entityCriterion) {
+        if (entityCriterion.getValue() instanceof Expression<?> parameter) {
+            return criteriaBuilder.notLike(getExpression(root, entityCriterion.getField()), (Expression<String>) parameter);
+        }
         return criteriaBuilder.notLike(getExpression(root, entityCriterion.getField()), String.valueOf(entityCriterion.getValue()));
     }
 
     public static Predicate notEqual(From root, CriteriaBuilder criteriaBuilder, SearchCriteria entityCriterion) {
+        if (entityCriterion.getValue() instanceof Expression<?> parameter) {
+            return criteriaBuilder.notEqual(getExpression(root, entityCriterion.getField()), parameter);
+        }
         return criteriaBuilder.notEqual(getExpression(root, entityCriterion.getField()), entityCriterion.getValue());
     }
 
     public static Predicate equal(From root, CriteriaBuilder criteriaBuilder, SearchCriteria entityCriterion) {
+        if (entityCriterion.getValue() instanceof Expression<?> parameter) {
+            return criteriaBuilder.equal(getExpression(root, entityCriterion.getField()), parameter);
+        }
         return criteriaBuilder.equal(getExpression(root, entityCriterion.getField()), entityCriterion.getValue());
     }
 
@@ -29,7 +43,9 @@ public class SearchOperationsHelper {
         Path expression = getExpression(root, entityCriterion.getField());
         Object value = entityCriterion.getValue();
 
-        if (value instanceof Number) {
+        if (value instanceof Expression<?> parameter) {
+            return criteriaBuilder.greaterThanOrEqualTo(expression, (Expression) parameter);
+        } else if (value instanceof Number) {
             return criteriaBuilder.greaterThanOrEqualTo(expression, (Comparable) value);
         } else if (value instanceof LocalDate) {
             return criteriaBuilder.greaterThanOrEqualTo(expression, (Comparable) value);
@@ -46,7 +62,9 @@ public class SearchOperationsHelper {
         Path expression = getExpression(root, entityCriterion.getField());
         Object value = entityCriterion.getValue();
 
-        if (value instanceof Number) {
+        if (value instanceof Expression<?> parameter) {
+            return criteriaBuilder.lessThanOrEqualTo(expression, (Expression) parameter);
+        } else if (value instanceof Number) {
             return criteriaBuilder.lessThanOrEqualTo(expression, (Comparable) value);
         } else if (value instanceof LocalDate) {
             return criteriaBuilder.lessThanOrEqualTo(expression, (Comparable) value);
@@ -69,6 +87,9 @@ public class SearchOperationsHelper {
     }
 
     public static Predicate like(From root, CriteriaBuilder criteriaBuilder, SearchCriteria entityCriterion) {
+        if (entityCriterion.getValue() instanceof Expression<?> parameter) {
+            return criteriaBuilder.like(getExpression(root, entityCriterion.getField()), (Expression<String>) parameter);
+        }
         return criteriaBuilder.like(getExpression(root, entityCriterion.getField()), String.valueOf(entityCriterion.getValue()));
     }
 
@@ -95,11 +116,17 @@ public class SearchOperationsHelper {
 
     public static Predicate in(From root, SearchCriteria entityCriterion) {
         Object value = entityCriterion.getValue();
+        if (value instanceof Expression<?> parameter) {
+            return getExpression(root, entityCriterion.getField()).in(parameter);
+        }
         return getExpression(root, entityCriterion.getField()).in(((Collection) value));
     }
 
     public static Predicate notIn(From root, SearchCriteria entityCriterion) {
         Object value = entityCriterion.getValue();
+        if (value instanceof Expression<?> parameter) {
+            return getExpression(root, entityCriterion.getField()).in(parameter).not();
+        }
         return getExpression(root, entityCriterion.getField()).in(((Collection) value)).not();
     }
 
@@ -107,7 +134,9 @@ public class SearchOperationsHelper {
         Path expression = getExpression(root, entityCriterion.getField());
         Object value = entityCriterion.getValue();
 
-        if (value instanceof Number) {
+        if (value instanceof Expression<?> parameter) {
+            return criteriaBuilder.greaterThan(expression, (Expression) parameter);
+        } else if (value instanceof Number) {
             return criteriaBuilder.greaterThan(expression, (Comparable) value);
         } else if (value instanceof LocalDate) {
             return criteriaBuilder.greaterThan(expression, (Comparable) value);
@@ -124,7 +153,9 @@ public class SearchOperationsHelper {
         Path expression = getExpression(root, entityCriterion.getField());
         Object value = entityCriterion.getValue();
 
-        if (value instanceof Number) {
+        if (value instanceof Expression<?> parameter) {
+            return criteriaBuilder.lessThan(expression, (Expression) parameter);
+        } else if (value instanceof Number) {
             return criteriaBuilder.lessThan(expression, (Comparable) value);
         } else if (value instanceof LocalDate) {
             return criteriaBuilder.lessThan(expression, (Comparable) value);
@@ -138,20 +169,27 @@ public class SearchOperationsHelper {
     }
 
     public static Predicate contains(From root, CriteriaBuilder criteriaBuilder, SearchCriteria entityCriterion) {
-        String value = String.valueOf(entityCriterion.getValue());
-        // Only add wildcards if not already present (translator may have added them)
-        if (!value.startsWith("%")) {
-            value = "%" + value;
+        if (!(entityCriterion.getValue() instanceof Expression<?>)) {
+            entityCriterion.setValue(wrapWithWildcards(entityCriterion.getValue()));
         }
-        if (!value.endsWith("%")) {
-            value = value + "%";
-        }
-        entityCriterion.setValue(value);
         return like(root, criteriaBuilder, entityCriterion);
     }
 
-    public static Predicate notContains(From root, CriteriaBuilder criteriaBuilder, SearchCriteria entityCriterion) {
-        String value = String.valueOf(entityCriterion.getValue());
+    /**
+     * Full text match of the field, see {@link FullTextSearch}. Plain values are converted to a boolean mode query here,
+     * parameters are bound already converted.
+     */
+    public static Predicate matches(From root, CriteriaBuilder criteriaBuilder, SearchCriteria entityCriterion) {
+        Expression<?> query = entityCriterion.getValue() instanceof Expression<?> parameter
+                ? parameter
+                : criteriaBuilder.literal(FullTextSearch.toBooleanModeQuery(entityCriterion.getValue()));
+        Expression<Double> relevance = criteriaBuilder.function(FullTextFunctionContributor.FULLTEXT_MATCH_FUNCTION, Double.class,
+                getExpression(root, entityCriterion.getField()), query);
+        return criteriaBuilder.greaterThan(relevance, 0.0);
+    }
+
+    public static String wrapWithWildcards(Object rawValue) {
+        String value = String.valueOf(rawValue);
         // Only add wildcards if not already present (translator may have added them)
         if (!value.startsWith("%")) {
             value = "%" + value;
@@ -159,7 +197,13 @@ public class SearchOperationsHelper {
         if (!value.endsWith("%")) {
             value = value + "%";
         }
-        entityCriterion.setValue(value);
+        return value;
+    }
+
+    public static Predicate notContains(From root, CriteriaBuilder criteriaBuilder, SearchCriteria entityCriterion) {
+        if (!(entityCriterion.getValue() instanceof Expression<?>)) {
+            entityCriterion.setValue(wrapWithWildcards(entityCriterion.getValue()));
+        }
         return notLike(root, criteriaBuilder, entityCriterion);
     }
 }
@@ -1,9 +1,13 @@
 package com.bervan.common.search;
 
+import com.bervan.common.search.model.CountPolicy;
+import com.bervan.common.search.model.KeysetCursor;
 import com.bervan.common.search.model.SortDirection;
+import com.bervan.common.search.model.SortKey;
 import com.bervan.history.model.AbstractBaseEntity;
 import jakarta.validation.constraints.NotNull;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class SearchQueryOption {
@@ -11,6 +15,7 @@ public class SearchQueryOption {
     private SortDirection sortDirection = SortDirection.ASC;
     @NotNull
     private String sortField = "id";
+    private List<SortKey> sortKeys;
     @NotNull
     private Integer page = 0;
     @NotNull
@@ -18,6 +23,12 @@ public class SearchQueryOption {
     private Class<? extends AbstractBaseEntity> entityToFind;
     private List<String> columnsToFetch;
     private boolean countQuery;
+    @NotNull
+    private CountPolicy countPolicy = CountPolicy.EXACT;
+    private boolean keysetPagination;
+    private KeysetCursor keysetAfter;
+    private KeysetCursor keysetBefore;
+    private Integer fetchSize;
 
     public SearchQueryOption() {
 
@@ -31,16 +42,58 @@ public class SearchQueryOption {
         return sortDirection;
     }
 
+    /**
+     * Sets direction of the single sort field, replaces sort keys set with {@link #setSortKeys}.
+     */
     public void setSortDirection(SortDirection sortDirection) {
         this.sortDirection = sortDirection;
+        this.sortKeys = null;
     }
 
+    /**
+     * Leading sort field.
+     */
     public String getSortField() {
         return sortField;
     }
 
+    /**
+     * Sorts by a single field, replaces sort keys set with {@link #setSortKeys}.
+     */
     public void setSortField(String sortField) {
         this.sortField = sortField;
+        this.sortKeys = null;
+    }
+
+    /**
+     * Sorts by several fields in order, fields may be paths through to-one relations ("owner.username").
+     * The first key becomes sort field and direction.
+     */
+    public void setSortKeys(List<SortKey> sortKeys) {
+        if (sortKeys == null || sortKeys.isEmpty()) {
+            this.sortKeys = null;
+            return;
+        }
+        this.sortField = sortKeys.get(0).getField();
+        this.sortDirection = sortKeys.get(0).getDirection();
+        this.sortKeys = List.copyOf(sortKeys);
+    }
+
+    /**
+     * Effective order of rows: sort keys (or sort field and direction) followed by id as a tiebreaker,
+     * so rows with equal sort values are always returned in the same order and pages don't overlap.
+     */
+    public List<SortKey> getSortKeys() {
+        List<SortKey> result = new ArrayList<>();
+        if (sortKeys != null) {
+            result.addAll(sortKeys);
+        } else {
+            result.add(new SortKey(sortField, sortDirection));
+        }
+        if (result.stream().noneMatch(sortKey -> "id".equals(sortKey.getField()))) {
+            result.add(new SortKey("id", result.get(0).getDirection()));
+        }
+        return result;
     }
 
     public Integer getPage() {
@@ -82,4 +135,53 @@ public class SearchQueryOption {
     public void setColumnsToFetch(List<String> columnsToFetch) {
         this.columnsToFetch = columnsToFetch;
     }
+
+    public CountPolicy getCountPolicy() {
+        return countPolicy;
+    }
+
+    public void setCountPolicy(CountPolicy countPolicy) {
+        this.countPolicy = countPolicy;
+    }
+
+    public boolean isKeysetPagination() {
+        return keysetPagination;
+    }
+
+    /**
+     * Enables keyset (seek) pagination: rows are ordered by sort keys and id, page cursors are returned in
+     * {@link com.bervan.common.search.model.SearchResponse} and a page can be loaded relative to a cursor
+     * instead of with an offset.
+     */
+    public void setKeysetPagination(boolean keysetPagination) {
+        this.keysetPagination = keysetPagination;
+    }
+
+    public KeysetCursor getKeysetAfter() {
+        return keysetAfter;
+    }
+
+    public void setKeysetAfter(KeysetCursor keysetAfter) {
+        this.keysetAfter = keysetAfter;
+    }
+
+    public KeysetCursor getKeysetBefore() {
+        return keysetBefore;
+    }
+
+    public void setKeysetBefore(KeysetCursor keysetBefore) {
+        this.keysetBefore = keysetBefore;
+    }
+
+    public Integer getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Number of rows loaded by one batch query of {@link SearchService#stream}. The persistence context is
+     * cleared before every next batch. When null, bervan.search.stream.fetch-size is used.
+     */
+    public void setFetchSize(Integer fetchSize) {
+        this.fetchSize = fetchSize;
+    }
 }
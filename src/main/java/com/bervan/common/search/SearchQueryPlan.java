@@ -0,0 +1,131 @@
+package com.bervan.common.search;
+
+import com.bervan.common.search.model.SearchOperation;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.ParameterExpression;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * Compiled, value independent form of a search. Criteria trees are built once per request shape with
+ * {@link ParameterExpression}s in place of criterion values and are re-executed with new bindings.
+ * Compiled trees must never be modified after compilation - they are shared between threads.
+ */
+public class SearchQueryPlan {
+    private final CriteriaQuery<?> mainQuery;
+    private final List<Parameter> mainQueryParameters;
+    private final CriteriaQuery<Long> countQuery;
+    private final List<Parameter> countQueryParameters;
+    private final List<ParameterExpression<?>> keysetParameters;
+
+    public SearchQueryPlan(CriteriaQuery<?> mainQuery, List<Parameter> mainQueryParameters,
+                           CriteriaQuery<Long> countQuery, List<Parameter> countQueryParameters,
+                           List<ParameterExpression<?>> keysetParameters) {
+        this.mainQuery = mainQuery;
+        this.mainQueryParameters = List.copyOf(mainQueryParameters);
+        this.countQuery = countQuery;
+        this.countQueryParameters = List.copyOf(countQueryParameters);
+        this.keysetParameters = List.copyOf(keysetParameters);
+    }
+
+    public CriteriaQuery<?> getMainQuery() {
+        return mainQuery;
+    }
+
+    public List<Parameter> getMainQueryParameters() {
+        return mainQueryParameters;
+    }
+
+    public CriteriaQuery<Long> getCountQuery() {
+        return countQuery;
+    }
+
+    public List<Parameter> getCountQueryParameters() {
+        return countQueryParameters;
+    }
+
+    /**
+     * Sort values of the keyset cursor, one per sort key (id included), empty when the plan has no seek predicate.
+     */
+    public List<ParameterExpression<?>> getKeysetParameters() {
+        return keysetParameters;
+    }
+
+    /**
+     * Ways of evaluating contains (~) criteria.
+     */
+    public enum TextMatch {
+        /**
+         * LIKE '%value%'.
+         */
+        LIKE,
+        /**
+         * MATCH ... AGAINST with a boolean mode query, see {@link FullTextSearch}.
+         */
+        FULL_TEXT,
+        /**
+         * IN (values matching '%value%'), see {@link TrigramIndex}.
+         */
+        TRIGRAM
+    }
+
+    /**
+     * Binding slot of a single criterion value. The criterion is addressed by its position in the request
+     * (group index + index in group criteria ids), which is stable for all requests sharing the plan key.
+     */
+    public static class Parameter {
+        private final ParameterExpression<?> expression;
+        private final Field field;
+        private final ValueConverter converter;
+        private final SearchOperation operation;
+        private final TextMatch textMatch;
+        private final int groupIndex;
+        private final int criterionIndex;
+
+        public Parameter(ParameterExpression<?> expression, Field field, ValueConverter converter, SearchOperation operation,
+                         TextMatch textMatch, int groupIndex, int criterionIndex) {
+            this.expression = expression;
+            this.field = field;
+            this.converter = converter;
+            this.operation = operation;
+            this.textMatch = textMatch;
+            this.groupIndex = groupIndex;
+            this.criterionIndex = criterionIndex;
+        }
+
+        public ParameterExpression<?> getExpression() {
+            return expression;
+        }
+
+        public Field getField() {
+            return field;
+        }
+
+        /**
+         * Converter of the criterion value to the bound parameter type, resolved when the plan is compiled.
+         */
+        public ValueConverter getConverter() {
+            return converter;
+        }
+
+        public SearchOperation getOperation() {
+            return operation;
+        }
+
+        /**
+         * How a contains value is bound, null for other operations.
+         */
+        public TextMatch getTextMatch() {
+            return textMatch;
+        }
+
+        public int getGroupIndex() {
+            return groupIndex;
+        }
+
+        public int getCriterionIndex() {
+            return criterionIndex;
+        }
+    }
+}
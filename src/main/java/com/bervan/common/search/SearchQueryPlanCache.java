@@ -0,0 +1,148 @@
+package com.bervan.common.search;
+
+import com.bervan.common.search.model.KeysetCursor;
+import com.bervan.common.search.model.Operator;
+import com.bervan.common.search.model.SearchOperation;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Shared cache of compiled {@link SearchQueryPlan}s. SearchService is prototype scoped, so the cache lives in
+ * its own singleton and is shared by all service instances.
+ */
+@Component
+public class SearchQueryPlanCache {
+    private final Logger log = LoggerFactory.getLogger(SearchQueryPlanCache.class);
+    @Value("${bervan.search.plan-cache.enabled:true}")
+    private boolean enabled;
+    @Value("${bervan.search.plan-cache.max-size:500}")
+    private int maxSize;
+    private LruCache<String, SearchQueryPlan> plans;
+
+    /**
+     * Builds a structural key of the search - everything that changes the shape of the Criteria tree
+     * (entity, sorting, projection, groups, criteria attributes and operators, merged groups) but none of the
+     * criterion values. Value shape (null / empty collection / collection / single value) is part of the key,
+     * because it decides whether a value is bound as a parameter or inlined. For contains criteria the key also tells
+     * whether the value has full text terms, values without them are matched with LIKE (see {@link FullTextSearch}).
+     */
+    public static String buildKey(SearchRequest searchRequest, SearchQueryOption options) {
+        StringBuilder key = new StringBuilder(256);
+        key.append(options.getEntityToFind().getName())
+                .append('|').append(options.getSortKeys())
+                .append('|').append(options.getColumnsToFetch())
+                .append('|').append(keysetShape(options));
+
+        if (searchRequest == null) {
+            return key.toString();
+        }
+
+        Set<String> processedGroups = new HashSet<>();
+        for (Group group : searchRequest.groups) {
+            key.append("|G:").append(group.id).append(':').append(group.operator).append('[');
+            for (String criterionId : group.criteriaIds) {
+                if (processedGroups.contains(criterionId)) {
+                    key.append("g:").append(criterionId);
+                } else {
+                    Criterion criterion = searchRequest.getCriterion(criterionId);
+                    if (criterion == null) {
+                        key.append('?');
+                    } else {
+                        key.append(criterion.type).append('.').append(criterion.attr)
+                                .append(' ').append(criterion.operator)
+                                .append(' ').append(valueShape(criterion.value));
+                        if (criterion.operator == SearchOperation.LIKE_OPERATION && criterion.value != null
+                                && !FullTextSearch.hasFullTextTerms(criterion.value)) {
+                            key.append('-');
+                        }
+                    }
+                }
+                key.append(',');
+                processedGroups.add(group.id);
+            }
+            key.append(']');
+        }
+
+        for (Map.Entry<String, Map<Operator, List<String>>> mergedGroup : new TreeMap<>(searchRequest.mergedGroups).entrySet()) {
+            key.append("|M:").append(mergedGroup.getKey()).append(new TreeMap<>(mergedGroup.getValue()));
+        }
+
+        return key.toString();
+    }
+
+    private static String keysetShape(SearchQueryOption options) {
+        if (!options.isKeysetPagination()) {
+            return "-";
+        }
+        KeysetCursor cursor = SearchService.getActiveKeysetCursor(options);
+        if (cursor == null) {
+            return "K";
+        }
+        return (cursor == options.getKeysetBefore() ? "KB" : "KA") + (cursor.isInclusive() ? "=" : "");
+    }
+
+    private static char valueShape(Object value) {
+        if (value == null) {
+            return 'n';
+        }
+        if (value instanceof Collection<?> collection) {
+            return collection.isEmpty() ? 'e' : 'c';
+        }
+        return 'v';
+    }
+
+    @PostConstruct
+    public void init() {
+        plans = new LruCache<>(maxSize);
+    }
+
+    public SearchQueryPlan get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        return plans.get(key);
+    }
+
+    public void put(String key, SearchQueryPlan plan) {
+        if (enabled) {
+            plans.put(key, plan);
+        }
+    }
+
+    public void invalidateAll() {
+        plans.invalidateAll();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getHits() {
+        return plans.getHits();
+    }
+
+    public long getMisses() {
+        return plans.getMisses();
+    }
+
+    public long getEvictions() {
+        return plans.getEvictions();
+    }
+
+    public int size() {
+        return plans.size();
+    }
+
+    @Scheduled(cron = "0 0 * * * *")
+    public void logStatistics() {
+        if (enabled) {
+            log.info("Search plan cache: {}", plans);
+        }
+    }
+}
@@ -11,9 +11,11 @@ public class SearchRequest {
     public static final String OWNER_ACCESS_GROUP = "OWNER_ACCESS_GROUP";
     public static String FINAL_GROUP_CONSTANT = "FINAL_GROUP";
     public final List<Group> groups = new ArrayList<>();
-    public final List<Criterion> criteria = new ArrayList<>();
+    private final List<Criterion> criteriaList = new ArrayList<>();
+    public final List<Criterion> criteria = Collections.unmodifiableList(criteriaList);
     public final Map<String, Map<Operator, List<String>>> mergedGroups = new HashMap<>();
     private boolean addOwnerCriterion = true;
+    private final Map<String, Criterion> criteriaById = new HashMap<>();
 
     public void addCriterion(String groupId, Operator groupOperatorForNewGroup, Class<?> objectType, String fieldPath, SearchOperation fieldValueOperator, Object value) {
         Group groupToUpdate;
@@ -26,7 +28,7 @@ public class SearchRequest {
         }
 
         String criteriaId = UUID.randomUUID().toString();
-        criteria.add(new Criterion(criteriaId, objectType.getSimpleName(), fieldPath, fieldValueOperator, value));
+        putCriterion(new Criterion(criteriaId, objectType.getSimpleName(), fieldPath, fieldValueOperator, value));
         groupToUpdate.criteriaIds.add(criteriaId);
     }
 
@@ -52,10 +54,22 @@ public class SearchRequest {
             } else {
                 groupToUpdate.criteriaIds.add(criterion.id);
             }
-            this.criteria.add(criterion);
+            putCriterion(criterion);
         }
     }
 
+    /**
+     * Criterion by id, null when it does not exist. When ids repeat, the first criterion with the id is returned.
+     */
+    public Criterion getCriterion(String criterionId) {
+        return criteriaById.get(criterionId);
+    }
+
+    private void putCriterion(Criterion criterion) {
+        criteriaList.add(criterion);
+        criteriaById.putIfAbsent(criterion.id, criterion);
+    }
+
     public boolean isAddOwnerCriterion() {
         return addOwnerCriterion;
     }
@@ -69,9 +83,12 @@ public class SearchRequest {
         addCriterion("DELETED_FALSE_CRITERIA_GROUP", Operator.OR_OPERATOR, objectType, "deleted", SearchOperation.IS_NULL_OPERATION, null);
     }
 
+    /**
+     * Rows owned by the logged user or by any account it can see (parents of a sub-account).
+     */
     public void addOwnerAccessCriteria(Class<?> objectType) {
         if (addOwnerCriterion) {
-            addCriterion(OWNER_ACCESS_GROUP, objectType, "[owners].id", SearchOperation.EQUALS_OPERATION, AuthService.getLoggedUserId());
+            addCriterion(OWNER_ACCESS_GROUP, objectType, "[owners].id", SearchOperation.IN_OPERATION, List.copyOf(AuthService.getVisibleOwnerIds()));
         }
     }
 
@@ -82,7 +99,7 @@ public class SearchRequest {
     }
 
     public boolean containsGroup(String groupId) {
-        return criteria.stream().anyMatch(e -> e.id.equals(groupId));
+        return groups.stream().anyMatch(e -> e.id.equals(groupId));
     }
 
     public void addIdEqualsCriteria(String groupId, Class<?> objectType, Serializable id) {
@@ -91,7 +108,9 @@ public class SearchRequest {
 
     public void merge(SearchRequest request) {
         groups.addAll(request.groups);
-        criteria.addAll(request.criteria);
+        for (Criterion criterion : request.criteria) {
+            putCriterion(criterion);
+        }
         // Also merge the mergedGroups (hierarchical group structure)
         for (Map.Entry<String, Map<Operator, List<String>>> entry : request.mergedGroups.entrySet()) {
             if (!mergedGroups.containsKey(entry.getKey())) {
@@ -100,6 +119,33 @@ public class SearchRequest {
         }
     }
 
+    /**
+     * Copy of the request without the group and its criteria. Groups and criteria are shared with this request.
+     * A group that is part of a merged group can't be left out - the copy contains it.
+     */
+    public SearchRequest withoutGroup(String groupId) {
+        SearchRequest copy = new SearchRequest();
+        copy.addOwnerCriterion = addOwnerCriterion;
+        boolean merged = mergedGroups.values().stream()
+                .flatMap(operatorGroups -> operatorGroups.values().stream())
+                .anyMatch(innerGroups -> innerGroups.contains(groupId));
+        Set<String> removedCriteria = new HashSet<>();
+        for (Group group : groups) {
+            if (!merged && group.id.equals(groupId)) {
+                removedCriteria.addAll(group.criteriaIds);
+            } else {
+                copy.groups.add(group);
+            }
+        }
+        for (Criterion criterion : criteria) {
+            if (!removedCriteria.contains(criterion.id)) {
+                copy.putCriterion(criterion);
+            }
+        }
+        copy.mergedGroups.putAll(mergedGroups);
+        return copy;
+    }
+
     public void mergeGroup(String newGroup, Operator operator, String... groups) {
         Map<Operator, List<String>> innerMap = new HashMap<>();
         innerMap.put(operator, List.of(groups));
@@ -0,0 +1,233 @@
+package com.bervan.common.search;
+
+import com.bervan.common.EntityMetadata;
+import com.bervan.common.EntityMetadataRegistry;
+import com.bervan.common.search.model.Operator;
+import com.bervan.common.search.model.SearchOperation;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates a {@link SearchRequest} in memory against entity instances, for rows that are not in the database
+ * (e.g. archived logs). The request is evaluated into the same AND/OR tree as {@link SearchRequestOptimizer} uses and
+ * compiled once into predicates. Values are converted like in {@link SearchService}, strings are compared
+ * case-insensitively as with the default MySQL collations.
+ * <p>
+ * Only criteria on attributes of the entity itself are supported, criteria on relations ([relation].field or paths)
+ * throw an exception.
+ */
+public class SearchRequestMatcher<T> implements Predicate<T> {
+    private static final int NOT_COMPARABLE = Integer.MIN_VALUE;
+    private final SearchRequestOptimizer.Node tree;
+    private final Predicate<Object> predicate;
+    private final EntityMetadata metadata;
+    private final String entityName;
+
+    private SearchRequestMatcher(SearchRequestOptimizer.Node tree, Class<T> entityType) {
+        this.tree = tree;
+        this.metadata = EntityMetadataRegistry.get(entityType);
+        this.entityName = entityType.getSimpleName();
+        this.predicate = compile(tree);
+    }
+
+    public static <T> SearchRequestMatcher<T> of(SearchRequest request, Class<T> entityType) {
+        SearchRequestOptimizer.Node tree = request.groups.isEmpty()
+                ? new SearchRequestOptimizer.Junction(Operator.AND_OPERATOR, List.of())
+                : SearchRequestOptimizer.buildTree(request);
+        if (tree == null) {
+            throw new RuntimeException("Search request can not be evaluated!");
+        }
+        return new SearchRequestMatcher<>(tree, entityType);
+    }
+
+    @Override
+    public boolean test(T entity) {
+        return predicate.test(entity);
+    }
+
+    /**
+     * Attributes read by the request's criteria.
+     */
+    public Set<String> getAttributes() {
+        Set<String> attributes = new HashSet<>();
+        collectAttributes(tree, attributes);
+        return attributes;
+    }
+
+    private static void collectAttributes(SearchRequestOptimizer.Node node, Set<String> attributes) {
+        if (node instanceof SearchRequestOptimizer.Junction junction) {
+            for (SearchRequestOptimizer.Node child : junction.children()) {
+                collectAttributes(child, attributes);
+            }
+        } else {
+            attributes.add(((SearchRequestOptimizer.Leaf) node).attr());
+        }
+    }
+
+    /**
+     * Smallest value of the attribute a matching entity can have according to the request, null when the request
+     * does not bound the attribute from below.
+     */
+    public Object getLowerBound(String attr) {
+        return getLowerBound(tree, attr);
+    }
+
+    private Comparable<Object> getLowerBound(SearchRequestOptimizer.Node node, String attr) {
+        if (node instanceof SearchRequestOptimizer.Junction junction) {
+            Comparable<Object> bound = null;
+            for (SearchRequestOptimizer.Node child : junction.children()) {
+                Comparable<Object> childBound = getLowerBound(child, attr);
+                if (junction.operator() == Operator.OR_OPERATOR) {
+                    if (childBound == null) {
+                        return null;
+                    }
+                    bound = bound == null || childBound.compareTo(bound) < 0 ? childBound : bound;
+                } else if (childBound != null && (bound == null || childBound.compareTo(bound) > 0)) {
+                    bound = childBound;
+                }
+            }
+            return bound;
+        }
+
+        SearchRequestOptimizer.Leaf leaf = (SearchRequestOptimizer.Leaf) node;
+        if (!attr.equals(leaf.attr()) || leaf.value() == null) {
+            return null;
+        }
+        Object value = convert(leaf);
+        return switch (leaf.operator()) {
+            case EQUALS_OPERATION, GREATER_OPERATION, GREATER_EQUAL_OPERATION -> (Comparable<Object>) value;
+            case IN_OPERATION -> {
+                Comparable<Object> min = null;
+                for (Object element : (Collection<?>) value) {
+                    if (element == null) {
+                        yield null;
+                    }
+                    if (min == null || ((Comparable<Object>) element).compareTo(min) < 0) {
+                        min = (Comparable<Object>) element;
+                    }
+                }
+                yield min;
+            }
+            default -> null;
+        };
+    }
+
+    private Predicate<Object> compile(SearchRequestOptimizer.Node node) {
+        if (node instanceof SearchRequestOptimizer.Junction junction) {
+            List<Predicate<Object>> children = new ArrayList<>();
+            for (SearchRequestOptimizer.Node child : junction.children()) {
+                children.add(compile(child));
+            }
+            if (junction.operator() == Operator.OR_OPERATOR) {
+                return entity -> children.stream().anyMatch(child -> child.test(entity));
+            }
+            return entity -> children.stream().allMatch(child -> child.test(entity));
+        }
+
+        SearchRequestOptimizer.Leaf leaf = (SearchRequestOptimizer.Leaf) node;
+        Field field = getField(leaf);
+        Object value = convert(leaf);
+        return switch (leaf.operator()) {
+            case IS_NULL_OPERATION -> entity -> read(field, entity) == null;
+            case IS_NOT_NULL_OPERATION -> entity -> read(field, entity) != null;
+            case EQUALS_OPERATION -> entity -> value == null ? read(field, entity) == null : isEqual(read(field, entity), value);
+            case NOT_EQUALS_OPERATION -> entity -> {
+                Object actual = read(field, entity);
+                return actual != null && !isEqual(actual, value);
+            };
+            case IN_OPERATION -> entity -> isIn(read(field, entity), (Collection<?>) value);
+            case NOT_IN_OPERATION -> entity -> {
+                Object actual = read(field, entity);
+                return actual != null && !isIn(actual, (Collection<?>) value);
+            };
+            case GREATER_OPERATION -> entity -> compare(read(field, entity), value) > 0;
+            case GREATER_EQUAL_OPERATION -> entity -> compare(read(field, entity), value) >= 0;
+            case LESS_OPERATION -> entity -> {
+                int result = compare(read(field, entity), value);
+                return result != NOT_COMPARABLE && result < 0;
+            };
+            case LESS_EQUAL_OPERATION -> entity -> {
+                int result = compare(read(field, entity), value);
+                return result != NOT_COMPARABLE && result <= 0;
+            };
+            case LIKE_OPERATION, NOT_LIKE_OPERATION -> {
+                Pattern pattern = TrigramIndex.ValueIndex.toRegex(String.valueOf(value));
+                boolean negated = leaf.operator() == SearchOperation.NOT_LIKE_OPERATION;
+                yield entity -> {
+                    Object actual = read(field, entity);
+                    return actual != null && pattern.matcher(String.valueOf(actual)).matches() != negated;
+                };
+            }
+        };
+    }
+
+    private Field getField(SearchRequestOptimizer.Leaf leaf) {
+        Field field = metadata.getField(leaf.attr());
+        if (field == null || (leaf.type() != null && !entityName.equals(leaf.type()))) {
+            throw new RuntimeException("Criterion on " + leaf.type() + "." + leaf.attr() + " can not be evaluated for " + entityName + "!");
+        }
+        return field;
+    }
+
+    private Object convert(SearchRequestOptimizer.Leaf leaf) {
+        Field field = getField(leaf);
+        if (leaf.operator() == SearchOperation.LIKE_OPERATION || leaf.operator() == SearchOperation.NOT_LIKE_OPERATION) {
+            return ValueConverter.forType(String.class).convert(leaf.value());
+        }
+        return ValueConverter.forType(field.getType()).convert(leaf.value());
+    }
+
+    private static Object read(Field field, Object entity) {
+        try {
+            return field.get(entity);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Could not read " + field.getName() + "!", e);
+        }
+    }
+
+    private static boolean isEqual(Object actual, Object expected) {
+        if (actual instanceof String actualString && expected instanceof String expectedString) {
+            return actualString.equalsIgnoreCase(expectedString);
+        }
+        return compare(actual, expected) == 0;
+    }
+
+    private static boolean isIn(Object actual, Collection<?> values) {
+        if (actual == null) {
+            return false;
+        }
+        for (Object value : values) {
+            if (value != null && isEqual(actual, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * NOT_COMPARABLE when any side is null - a comparison with NULL is never true in SQL.
+     */
+    private static int compare(Object actual, Object expected) {
+        if (actual == null || expected == null) {
+            return NOT_COMPARABLE;
+        }
+        if (actual instanceof Number actualNumber && expected instanceof Number expectedNumber) {
+            return Integer.signum(new BigDecimal(actualNumber.toString()).compareTo(new BigDecimal(expectedNumber.toString())));
+        }
+        if (actual instanceof String actualString && expected instanceof String expectedString) {
+            return Integer.signum(actualString.compareToIgnoreCase(expectedString));
+        }
+        if (actual instanceof Comparable<?> comparable) {
+            return Integer.signum(((Comparable<Object>) comparable).compareTo(expected));
+        }
+        return actual.equals(expected) ? 0 : NOT_COMPARABLE;
+    }
+}
@@ -0,0 +1,343 @@
+package com.bervan.common.search;
+
+import com.bervan.common.EntityMetadata;
+import com.bervan.common.EntityMetadataRegistry;
+import com.bervan.common.search.model.Operator;
+import com.bervan.common.search.model.SearchOperation;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.ManyToMany;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OneToOne;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.bervan.common.search.SearchRequest.FINAL_GROUP_CONSTANT;
+
+/**
+ * Rewrites a {@link SearchRequest} into an equivalent, simpler request before it is compiled into Criteria.
+ * The request is evaluated into an AND/OR tree with the same rules as {@link SearchService} uses (groups referencing
+ * other groups, merged groups, standalone groups ANDed with {@link SearchRequest#FINAL_GROUP_CONSTANT}), then:
+ * <ul>
+ *     <li>nested junctions with the same operator are flattened and single child junctions are unwrapped,</li>
+ *     <li>identical criteria and subtrees are removed (e.g. owner / deleted groups added twice),</li>
+ *     <li>OR of EQUALS / IN on the same attribute is collapsed into a single IN (checkbox filters),</li>
+ *     <li>OR containing attr IS NULL and attr IS NOT NULL is dropped as always true - only for plain columns of the
+ *     searched entity, criteria on relations and paths join the relation and are false for rows without it,</li>
+ *     <li>AND children are ordered cheap first: indexed EQUALS / IN, other equality, ranges, negations, LIKE, subtrees.</li>
+ * </ul>
+ * The input request is never modified. A request that can not be evaluated (unknown criterion, missing final group)
+ * is returned unchanged, so the search reports the error as before.
+ */
+@Component
+public class SearchRequestOptimizer {
+    private static final Junction TRUE = new Junction(Operator.AND_OPERATOR, List.of());
+    private static final Junction FALSE = new Junction(Operator.OR_OPERATOR, List.of());
+    private final Logger log = LoggerFactory.getLogger(SearchRequestOptimizer.class);
+    @Value("${bervan.search.optimizer.enabled:true}")
+    private boolean enabled;
+
+    public SearchRequest optimize(SearchRequest searchRequest, Class<?> entityToFind) {
+        if (!enabled || searchRequest == null || searchRequest.groups.isEmpty()) {
+            return searchRequest;
+        }
+
+        try {
+            Node tree = buildTree(searchRequest);
+            if (tree == null) {
+                return searchRequest;
+            }
+
+            Node optimized = simplify(tree, entityToFind.getSimpleName(), EntityMetadataRegistry.get(entityToFind));
+            SearchRequest result = toSearchRequest(optimized);
+            result.setAddOwnerCriterion(searchRequest.isAddOwnerCriterion());
+
+            if (log.isDebugEnabled()) {
+                log.debug("Search request for {} optimized\nbefore: {}\nafter:  {}", entityToFind.getSimpleName(), tree, optimized);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            log.warn("Could not optimize search request, original request is used.", e);
+            return searchRequest;
+        }
+    }
+
+    /**
+     * AND/OR tree of the request, null when the request can not be evaluated. Also used by {@link SearchRequestMatcher}.
+     */
+    static Node buildTree(SearchRequest searchRequest) {
+        Map<String, Node> groupNodes = new LinkedHashMap<>();
+        for (Group group : searchRequest.groups) {
+            if (group.criteriaIds.isEmpty()) {
+                // empty groups produce no predicate
+                continue;
+            }
+            List<Node> children = new ArrayList<>();
+            for (String id : group.criteriaIds) {
+                Node groupNode = groupNodes.get(id);
+                if (groupNode != null) {
+                    children.add(groupNode);
+                } else {
+                    Criterion criterion = searchRequest.getCriterion(id);
+                    if (criterion == null) {
+                        return null;
+                    }
+                    children.add(new Leaf(criterion.type, criterion.attr, criterion.operator, criterion.value));
+                }
+            }
+            // groups with the same id replace each other, as they do when predicates are built
+            groupNodes.remove(group.id);
+            groupNodes.put(group.id, new Junction(group.operator == Operator.OR_OPERATOR ? Operator.OR_OPERATOR : Operator.AND_OPERATOR, children));
+        }
+
+        for (String groupId : SearchService.sortMergedGroupIds(searchRequest.mergedGroups.keySet())) {
+            Map<Operator, List<String>> mergedGroup = searchRequest.mergedGroups.get(groupId);
+            Operator operator = mergedGroup.get(Operator.AND_OPERATOR) != null ? Operator.AND_OPERATOR : Operator.OR_OPERATOR;
+            List<Node> children = new ArrayList<>();
+            for (String innerGroup : mergedGroup.get(operator)) {
+                Node innerNode = groupNodes.get(innerGroup);
+                if (innerNode == null) {
+                    return null;
+                }
+                children.add(innerNode);
+            }
+            groupNodes.remove(groupId);
+            groupNodes.put(groupId, new Junction(operator, children));
+        }
+
+        Set<String> groupsInMergedGroups = new HashSet<>();
+        for (Map<Operator, List<String>> mergedGroup : searchRequest.mergedGroups.values()) {
+            mergedGroup.values().forEach(groupsInMergedGroups::addAll);
+        }
+
+        if (groupNodes.containsKey(FINAL_GROUP_CONSTANT)) {
+            List<Node> children = new ArrayList<>();
+            for (Map.Entry<String, Node> entry : groupNodes.entrySet()) {
+                if (!groupsInMergedGroups.contains(entry.getKey()) && !searchRequest.mergedGroups.containsKey(entry.getKey())) {
+                    children.add(entry.getValue());
+                }
+            }
+            children.add(groupNodes.get(FINAL_GROUP_CONSTANT));
+            return new Junction(Operator.AND_OPERATOR, children);
+        }
+
+        if (!searchRequest.mergedGroups.isEmpty()) {
+            return null;
+        }
+
+        return new Junction(Operator.AND_OPERATOR, new ArrayList<>(groupNodes.values()));
+    }
+
+    private Node simplify(Node node, String entityName, EntityMetadata metadata) {
+        if (!(node instanceof Junction junction)) {
+            return node;
+        }
+
+        List<Node> children = new ArrayList<>();
+        for (Node child : junction.children()) {
+            Node simplified = simplify(child, entityName, metadata);
+            if (simplified instanceof Junction nested && nested.operator() == junction.operator()) {
+                children.addAll(nested.children());
+            } else {
+                children.add(simplified);
+            }
+        }
+        children = new ArrayList<>(new LinkedHashSet<>(children));
+
+        if (junction.operator() == Operator.OR_OPERATOR) {
+            if (children.contains(TRUE) || containsNullTautology(children, entityName, metadata)) {
+                return TRUE;
+            }
+            children = collapseEqualsToIn(children);
+        } else {
+            if (children.contains(FALSE)) {
+                return FALSE;
+            }
+            children.sort(Comparator.comparingInt(child -> cost(child, entityName, metadata)));
+        }
+
+        if (children.size() == 1) {
+            return children.get(0);
+        }
+        return new Junction(junction.operator(), children);
+    }
+
+    private boolean containsNullTautology(List<Node> children, String entityName, EntityMetadata metadata) {
+        Set<List<String>> isNull = new HashSet<>();
+        Set<List<String>> isNotNull = new HashSet<>();
+        for (Node child : children) {
+            if (child instanceof Leaf leaf && isPlainColumn(leaf, entityName, metadata)) {
+                if (leaf.operator() == SearchOperation.IS_NULL_OPERATION) {
+                    isNull.add(leaf.attributeKey());
+                } else if (leaf.operator() == SearchOperation.IS_NOT_NULL_OPERATION) {
+                    isNotNull.add(leaf.attributeKey());
+                }
+            }
+        }
+        isNull.retainAll(isNotNull);
+        return !isNull.isEmpty();
+    }
+
+    private static boolean isPlainColumn(Leaf leaf, String entityName, EntityMetadata metadata) {
+        if (!entityName.equals(leaf.type()) || leaf.attr() == null || leaf.attr().startsWith("[") || leaf.attr().contains(".")) {
+            return false;
+        }
+        Field field = metadata.getField(leaf.attr());
+        return field != null && !Collection.class.isAssignableFrom(field.getType())
+                && !field.isAnnotationPresent(ManyToOne.class) && !field.isAnnotationPresent(OneToOne.class)
+                && !field.isAnnotationPresent(OneToMany.class) && !field.isAnnotationPresent(ManyToMany.class)
+                && !field.isAnnotationPresent(ElementCollection.class);
+    }
+
+    private List<Node> collapseEqualsToIn(List<Node> children) {
+        Map<List<String>, List<Object>> valuesByAttribute = new LinkedHashMap<>();
+        Map<List<String>, Integer> criteriaByAttribute = new HashMap<>();
+        for (Node child : children) {
+            if (child instanceof Leaf leaf && isInCandidate(leaf)) {
+                List<Object> values = valuesByAttribute.computeIfAbsent(leaf.attributeKey(), k -> new ArrayList<>());
+                if (leaf.value() instanceof Collection<?> collection) {
+                    values.addAll(collection);
+                } else {
+                    values.add(leaf.value());
+                }
+                criteriaByAttribute.merge(leaf.attributeKey(), 1, Integer::sum);
+            }
+        }
+
+        List<Node> result = new ArrayList<>();
+        for (Node child : children) {
+            if (child instanceof Leaf leaf && isInCandidate(leaf) && criteriaByAttribute.get(leaf.attributeKey()) > 1) {
+                List<Object> values = valuesByAttribute.remove(leaf.attributeKey());
+                if (values != null) {
+                    result.add(new Leaf(leaf.type(), leaf.attr(), SearchOperation.IN_OPERATION, values.stream().distinct().toList()));
+                }
+            } else {
+                result.add(child);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Criteria on joined attributes are left alone - every criterion gets its own join.
+     */
+    private boolean isInCandidate(Leaf leaf) {
+        if (leaf.attr().startsWith("[")) {
+            return false;
+        }
+        if (leaf.operator() == SearchOperation.EQUALS_OPERATION) {
+            return leaf.value() != null && !(leaf.value() instanceof Collection<?>);
+        }
+        return leaf.operator() == SearchOperation.IN_OPERATION
+                && leaf.value() instanceof Collection<?> collection && !collection.isEmpty() && !collection.contains(null);
+    }
+
+    private int cost(Node node, String entityName, EntityMetadata metadata) {
+        if (!(node instanceof Leaf leaf)) {
+            return 6;
+        }
+        boolean indexed = entityName.equals(leaf.type()) && metadata.isIndexed(leaf.attr());
+        return switch (leaf.operator()) {
+            case EQUALS_OPERATION, IN_OPERATION -> indexed ? 0 : 1;
+            case IS_NULL_OPERATION, IS_NOT_NULL_OPERATION -> 2;
+            case GREATER_OPERATION, GREATER_EQUAL_OPERATION, LESS_OPERATION, LESS_EQUAL_OPERATION -> 3;
+            case NOT_EQUALS_OPERATION, NOT_IN_OPERATION -> 4;
+            default -> 5;
+        };
+    }
+
+    private SearchRequest toSearchRequest(Node tree) {
+        SearchRequest result = new SearchRequest();
+        if (TRUE.equals(tree)) {
+            return result;
+        }
+
+        Junction root = tree instanceof Junction junction ? junction : new Junction(Operator.AND_OPERATOR, List.of(tree));
+        Emitter emitter = new Emitter(result);
+        if (root.isLeafGroup()) {
+            emitter.emitLeafGroup(root.operator(), root.children());
+        } else {
+            emitter.emitMergedGroup(root, FINAL_GROUP_CONSTANT);
+        }
+        return result;
+    }
+
+    sealed interface Node permits Leaf, Junction {
+    }
+
+    record Leaf(String type, String attr, SearchOperation operator, Object value) implements Node {
+        List<String> attributeKey() {
+            return List.of(String.valueOf(type), String.valueOf(attr));
+        }
+
+        @Override
+        public String toString() {
+            return type + "." + attr + " " + operator + (value != null ? " " + value : "");
+        }
+    }
+
+    record Junction(Operator operator, List<Node> children) implements Node {
+        boolean isLeafGroup() {
+            return children.stream().allMatch(child -> child instanceof Leaf);
+        }
+
+        @Override
+        public String toString() {
+            return (operator == Operator.AND_OPERATOR ? "AND" : "OR") + children.stream().map(Node::toString)
+                    .collect(Collectors.joining(", ", "(", ")"));
+        }
+    }
+
+    /**
+     * Writes the tree back as groups: leaves of a junction form one group, nested junctions become merged groups.
+     * Merged group ids are assigned after their children, so children are always built first.
+     */
+    private static class Emitter {
+        private final SearchRequest searchRequest;
+        private int groupCounter = 1;
+        private int criterionCounter = 1;
+
+        private Emitter(SearchRequest searchRequest) {
+            this.searchRequest = searchRequest;
+        }
+
+        private String emitLeafGroup(Operator operator, List<Node> leaves) {
+            String groupId = "G" + groupCounter++;
+            Criterion[] criteria = leaves.stream()
+                    .map(node -> (Leaf) node)
+                    .map(leaf -> new Criterion("C" + criterionCounter++, leaf.type(), leaf.attr(), leaf.operator(), leaf.value()))
+                    .toArray(Criterion[]::new);
+            if (criteria.length == 0) {
+                searchRequest.groups.add(new Group(groupId, operator));
+            } else {
+                searchRequest.addCriterion(groupId, operator, criteria);
+            }
+            return groupId;
+        }
+
+        private String emitMergedGroup(Junction junction, String groupId) {
+            List<String> innerGroups = new ArrayList<>();
+            List<Node> leaves = junction.children().stream().filter(child -> child instanceof Leaf).toList();
+            if (!leaves.isEmpty()) {
+                innerGroups.add(emitLeafGroup(junction.operator(), leaves));
+            }
+            for (Node child : junction.children()) {
+                if (child instanceof Junction nested) {
+                    innerGroups.add(nested.isLeafGroup()
+                            ? emitLeafGroup(nested.operator(), nested.children())
+                            : emitMergedGroup(nested, null));
+                }
+            }
+
+            String mergedGroupId = groupId != null ? groupId : "G" + groupCounter++;
+            searchRequest.mergeGroup(mergedGroupId, junction.operator(), innerGroups.toArray(String[]::new));
+            return mergedGroupId;
+        }
+    }
+}
@@ -1,13 +1,14 @@
 package com.bervan.common.search;
 
+import com.bervan.common.EntityMetadata;
+import com.bervan.common.EntityMetadataRegistry;
 import com.bervan.common.search.model.Operator;
 import com.bervan.common.search.model.SearchOperation;
 
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Translates JQL-like query strings into SearchRequest objects.
@@ -27,7 +28,7 @@ import java.util.regex.Pattern;
  * - NOT IN (value1, value2, ...)
  *
  * Logical operators:
- * - & (AND)
+ * - & (AND), binds tighter than OR
  * - | (OR)
  * - Parentheses for grouping
  *
@@ -40,7 +41,7 @@ import java.util.regex.Pattern;
  */
 public class SearchRequestQueryTranslator {
 
-    // Pattern to match operators in order of precedence (longer operators first)
+    // Operators in order of matching (longer operators first)
     private static final List<OperatorMapping> OPERATOR_MAPPINGS = List.of(
             new OperatorMapping("!~", SearchOperation.NOT_LIKE_OPERATION),
             new OperatorMapping("!=", SearchOperation.NOT_EQUALS_OPERATION),
@@ -52,17 +53,10 @@ public class SearchRequestQueryTranslator {
             new OperatorMapping("<", SearchOperation.LESS_OPERATION)
     );
 
-    // Pattern for IN and NOT IN operators
-    private static final Pattern IN_PATTERN = Pattern.compile(
-            "^\\s*([\\w.\\[\\]]+)\\s+(NOT\\s+)?IN\\s*\\(([^)]+)\\)\\s*$",
-            Pattern.CASE_INSENSITIVE
-    );
-
-    // Pattern for IS NULL and IS NOT NULL
-    private static final Pattern IS_NULL_PATTERN = Pattern.compile(
-            "^\\s*([\\w.\\[\\]]+)\\s+IS\\s+(NOT\\s+)?NULL\\s*$",
-            Pattern.CASE_INSENSITIVE
-    );
+    private static final LruCache<String, Expression> PARSED_QUERIES = new LruCache<>(256);
+    private static final LruCache<String, ValidationResult> VALIDATION_RESULTS = new LruCache<>(512);
+    private static final Map<Class<?>, FieldNameTrie> FIELD_NAME_TRIES = new ConcurrentHashMap<>();
+    private static final int MAX_SUGGESTIONS = 10;
 
     /**
      * Translates a query string into a SearchRequest.
@@ -82,7 +76,7 @@ public class SearchRequestQueryTranslator {
         AtomicInteger groupCounter = new AtomicInteger(1);
 
         try {
-            Expression parsedExpression = parseExpression(query.trim());
+            Expression parsedExpression = parse(query);
             String rootGroupId = buildSearchRequestFromExpression(parsedExpression, entityToFind, searchRequest, criterionCounter, groupCounter);
 
             if (!SearchRequest.FINAL_GROUP_CONSTANT.equals(rootGroupId)) {
@@ -98,7 +92,8 @@ public class SearchRequestQueryTranslator {
     }
 
     /**
-     * Validates a query string without executing it.
+     * Validates a query string without executing it. Results are cached per entity and query text,
+     * so validating as the user types (and deletes) mostly hits the cache.
      *
      * @param query The query string to validate
      * @param entityClass The entity class to validate against
@@ -109,8 +104,18 @@ public class SearchRequestQueryTranslator {
             return new ValidationResult(true, null); // Empty query is valid (no filter)
         }
 
+        String key = entityClass.getName() + ":" + query.trim();
+        ValidationResult result = VALIDATION_RESULTS.get(key);
+        if (result == null) {
+            result = validate(query, entityClass);
+            VALIDATION_RESULTS.put(key, result);
+        }
+        return result;
+    }
+
+    private static ValidationResult validate(String query, Class<?> entityClass) {
         try {
-            Expression expr = parseExpression(query.trim());
+            Expression expr = parse(query);
             List<String> warnings = validateExpression(expr, entityClass);
             return new ValidationResult(true, warnings.isEmpty() ? null : String.join("; ", warnings));
         } catch (QuerySyntaxException e) {
@@ -124,32 +129,60 @@ public class SearchRequestQueryTranslator {
      * Returns a list of available field names for an entity class.
      */
     public static List<String> getAvailableFields(Class<?> entityClass) {
-        List<String> fields = new ArrayList<>();
-        collectFields(entityClass, "", fields, new HashSet<>());
-        return fields;
+        return EntityMetadataRegistry.get(entityClass).getAvailableFieldNames();
     }
 
-    private static void collectFields(Class<?> clazz, String prefix, List<String> fields, Set<Class<?>> visited) {
-        if (clazz == null || visited.contains(clazz) || clazz == Object.class) {
-            return;
-        }
-        visited.add(clazz);
-
-        for (Field field : clazz.getDeclaredFields()) {
-            String fieldName = prefix.isEmpty() ? field.getName() : prefix + "." + field.getName();
-
-            // Skip synthetic and static fields
-            if (field.isSynthetic() || java.lang.reflect.Modifier.isStatic(field.getModifiers())) {
-                continue;
+    /**
+     * Returns completions for the end of a partially typed query: field names when a field is being typed,
+     * operators when a known field is followed by a space. Empty when nothing can be suggested.
+     */
+    public static List<String> suggest(String query, Class<?> entityClass) {
+        if (query == null) {
+            return List.of();
+        }
+
+        // start of the condition being typed - after the last (, & or | outside quotes
+        int conditionStart = 0;
+        char quote = 0;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (quote != 0) {
+                if (c == quote && query.charAt(i - 1) != '\\') {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '(' || c == '&' || c == '|') {
+                conditionStart = i + 1;
             }
+        }
+        if (quote != 0) {
+            return List.of();
+        }
 
-            fields.add(fieldName);
+        String condition = query.substring(conditionStart).stripLeading();
+        int fieldEnd = 0;
+        while (fieldEnd < condition.length() && Parser.isAttributeChar(condition.charAt(fieldEnd))) {
+            fieldEnd++;
+        }
+        String field = condition.substring(0, fieldEnd);
+        FieldNameTrie fieldNames = FIELD_NAME_TRIES.computeIfAbsent(entityClass, type -> new FieldNameTrie(getAvailableFields(type)));
+        if (fieldEnd == condition.length()) {
+            return fieldNames.complete(field, MAX_SUGGESTIONS);
         }
 
-        // Also check superclass
-        if (clazz.getSuperclass() != null && clazz.getSuperclass() != Object.class) {
-            collectFields(clazz.getSuperclass(), prefix, fields, visited);
+        String operator = condition.substring(fieldEnd).stripLeading();
+        if (!fieldNames.contains(field)) {
+            return List.of();
+        }
+        List<String> operators = new ArrayList<>();
+        for (OperatorInfo operatorInfo : getSupportedOperators()) {
+            if (operatorInfo.symbol.regionMatches(true, 0, operator, 0, operator.length())
+                    && operatorInfo.symbol.length() > operator.length()) {
+                operators.add(operatorInfo.symbol);
+            }
         }
+        return operators;
     }
 
     /**
@@ -159,7 +192,7 @@ public class SearchRequestQueryTranslator {
         return List.of(
                 new OperatorInfo("=", "Equals", "name = 'John'"),
                 new OperatorInfo("!=", "Not equals", "status != 'inactive'"),
-                new OperatorInfo("~", "Contains (LIKE)", "name ~ 'test'"),
+                new OperatorInfo("~", "Contains (LIKE), full text indexed fields match word prefixes only", "name ~ 'test'"),
                 new OperatorInfo("!~", "Not contains (NOT LIKE)", "name !~ 'spam'"),
                 new OperatorInfo(">", "Greater than", "price > 100"),
                 new OperatorInfo("<", "Less than", "price < 50"),
@@ -183,220 +216,247 @@ public class SearchRequestQueryTranslator {
         );
     }
 
-    private static boolean isWrappingParentheses(String input) {
-        int parens = 0;
-        for (int i = 0; i < input.length(); i++) {
-            char c = input.charAt(i);
-            if (c == '(') parens++;
-            else if (c == ')') parens--;
-            if (parens == 0 && i < input.length() - 1) {
-                return false;
-            }
-        }
-        return parens == 0;
+    /**
+     * Parses the query into an expression tree, parsed trees are cached by query text.
+     */
+    private static Expression parse(String query) {
+        String key = query.trim();
+        Expression expression = PARSED_QUERIES.get(key);
+        if (expression == null) {
+            expression = new Parser(query).parseQuery();
+            PARSED_QUERIES.put(key, expression);
+        }
+        return expression;
     }
 
-    private static Expression parseExpression(String input) {
-        input = input.trim();
+    /**
+     * Single pass recursive descent parser working directly on the query text:
+     * <pre>
+     * query     := or EOF
+     * or        := and ('|' and)*
+     * and       := primary ('&' primary)*
+     * primary   := '(' or ')' | condition
+     * condition := field (IS [NOT] NULL | [NOT] IN '(' value (',' value)* ')' | operator value)
+     * </pre>
+     * AND binds tighter than OR, chains of the same operator form one group, parentheses always form a nested group.
+     */
+    private static class Parser {
+        private final String input;
+        private int pos;
 
-        // Remove wrapping parentheses
-        while (input.startsWith("(") && input.endsWith(")") && isWrappingParentheses(input)) {
-            input = input.substring(1, input.length() - 1).trim();
+        private Parser(String input) {
+            this.input = input;
         }
 
-        int parens = 0;
-        boolean inQuotes = false;
-        char quoteChar = 0;
-        List<String> tokens = new ArrayList<>();
-        List<Operator> ops = new ArrayList<>();
-        StringBuilder current = new StringBuilder();
-
-        for (int i = 0; i < input.length(); i++) {
-            char c = input.charAt(i);
-
-            // Track quote state
-            if ((c == '\'' || c == '"') && (i == 0 || input.charAt(i - 1) != '\\')) {
-                if (!inQuotes) {
-                    inQuotes = true;
-                    quoteChar = c;
-                } else if (c == quoteChar) {
-                    inQuotes = false;
-                }
+        private Expression parseQuery() {
+            skipWhitespace();
+            if (pos == input.length()) {
+                throw new QuerySyntaxException("Query cannot be empty", 0);
             }
-
-            if (!inQuotes) {
-                if (c == '(') parens++;
-                if (c == ')') parens--;
-
-                if ((c == '&' || c == '|') && parens == 0) {
-                    tokens.add(current.toString().trim());
-                    current.setLength(0);
-                    ops.add(c == '&' ? Operator.AND_OPERATOR : Operator.OR_OPERATOR);
-                    continue;
+            Expression expression = parseOr();
+            skipWhitespace();
+            if (pos < input.length()) {
+                if (input.charAt(pos) == ')') {
+                    throw new QuerySyntaxException("Unbalanced parentheses in query - unexpected ')'", pos);
                 }
+                throw new QuerySyntaxException("Unexpected '" + input.charAt(pos) + "' - expected & or |", pos);
             }
-
-            current.append(c);
-        }
-        tokens.add(current.toString().trim());
-
-        // Validate balanced parentheses
-        if (parens != 0) {
-            throw new QuerySyntaxException("Unbalanced parentheses in query");
+            return expression;
         }
 
-        if (inQuotes) {
-            throw new QuerySyntaxException("Unclosed quote in query");
+        private Expression parseOr() {
+            List<Expression> expressions = new ArrayList<>();
+            expressions.add(parseAnd());
+            while (consume('|')) {
+                expressions.add(parseAnd());
+            }
+            return expressions.size() == 1 ? expressions.get(0) : new GroupExpression(Operator.OR_OPERATOR, expressions);
         }
 
-        if (tokens.size() == 1) {
-            return parseCondition(tokens.get(0));
+        private Expression parseAnd() {
+            List<Expression> expressions = new ArrayList<>();
+            expressions.add(parsePrimary());
+            while (consume('&')) {
+                expressions.add(parsePrimary());
+            }
+            return expressions.size() == 1 ? expressions.get(0) : new GroupExpression(Operator.AND_OPERATOR, expressions);
         }
 
-        // Check all ops are the same type (AND/OR) at this level
-        Operator op = ops.get(0);
-        List<Expression> expressions = new ArrayList<>();
-        for (String token : tokens) {
-            if (token.isEmpty()) {
-                throw new QuerySyntaxException("Empty condition found - check for missing operands around & or |");
+        private Expression parsePrimary() {
+            skipWhitespace();
+            if (pos == input.length() || input.charAt(pos) == '&' || input.charAt(pos) == '|' || input.charAt(pos) == ')') {
+                throw new QuerySyntaxException("Empty condition found - check for missing operands around & or |", pos);
             }
-            expressions.add(parseExpression(token));
+            if (input.charAt(pos) == '(') {
+                int start = pos++;
+                Expression expression = parseOr();
+                if (!consume(')')) {
+                    throw new QuerySyntaxException("Unbalanced parentheses in query - '(' is not closed", start);
+                }
+                return expression;
+            }
+            return parseCondition();
         }
-        return new GroupExpression(op, expressions);
-    }
 
-    private static Expression parseCondition(String input) {
-        input = input.trim();
+        private Expression parseCondition() {
+            int start = pos;
+            String attribute = readAttribute();
 
-        if (input.isEmpty()) {
-            throw new QuerySyntaxException("Empty condition");
-        }
+            if (consumeKeyword("IS")) {
+                boolean not = consumeKeyword("NOT");
+                if (!consumeKeyword("NULL")) {
+                    throw new QuerySyntaxException("Expected NULL after IS" + (not ? " NOT" : ""), pos);
+                }
+                return new Condition(attribute, not ? SearchOperation.IS_NOT_NULL_OPERATION : SearchOperation.IS_NULL_OPERATION, null);
+            }
 
-        // Try IS NULL / IS NOT NULL first
-        Matcher isNullMatcher = IS_NULL_PATTERN.matcher(input);
-        if (isNullMatcher.matches()) {
-            String attr = isNullMatcher.group(1).trim();
-            boolean isNotNull = isNullMatcher.group(2) != null;
-            SearchOperation op = isNotNull ? SearchOperation.IS_NOT_NULL_OPERATION : SearchOperation.IS_NULL_OPERATION;
-            return new Condition(attr, op, null);
-        }
+            int notPosition = pos;
+            boolean not = consumeKeyword("NOT");
+            if (consumeKeyword("IN")) {
+                return new Condition(attribute, not ? SearchOperation.NOT_IN_OPERATION : SearchOperation.IN_OPERATION, readInValues());
+            }
+            if (not) {
+                throw new QuerySyntaxException("Expected IN after NOT", notPosition);
+            }
+
+            skipWhitespace();
+            for (OperatorMapping mapping : OPERATOR_MAPPINGS) {
+                if (input.startsWith(mapping.symbol, pos)) {
+                    pos += mapping.symbol.length();
+                    return new Condition(attribute, mapping.operation, parseValue(readValue(), mapping.operation));
+                }
+            }
 
-        // Try IN / NOT IN
-        Matcher inMatcher = IN_PATTERN.matcher(input);
-        if (inMatcher.matches()) {
-            String attr = inMatcher.group(1).trim();
-            boolean isNotIn = inMatcher.group(2) != null;
-            String valuesPart = inMatcher.group(3).trim();
-            List<String> values = parseInValues(valuesPart);
-            SearchOperation op = isNotIn ? SearchOperation.NOT_IN_OPERATION : SearchOperation.IN_OPERATION;
-            return new Condition(attr, op, values);
+            throw new QuerySyntaxException("Invalid condition: '" + input.substring(start, Math.min(input.length(), pos + 20)).trim()
+                    + "'. Expected format: field operator value. " +
+                    "Supported operators: =, !=, ~, !~, >, <, >=, <=, IS NULL, IS NOT NULL, IN, NOT IN", pos);
         }
 
-        // Try standard operators (order matters - longer operators first)
-        for (OperatorMapping mapping : OPERATOR_MAPPINGS) {
-            int opIndex = findOperatorIndex(input, mapping.symbol);
-            if (opIndex > 0) {
-                String attr = input.substring(0, opIndex).trim();
-                String valueStr = input.substring(opIndex + mapping.symbol.length()).trim();
-                Object value = parseValue(valueStr, mapping.operation);
+        private String readAttribute() {
+            skipWhitespace();
+            int start = pos;
+            while (pos < input.length() && isAttributeChar(input.charAt(pos))) {
+                pos++;
+            }
+            if (start == pos) {
+                throw new QuerySyntaxException("Missing field name", pos);
+            }
+            return input.substring(start, pos);
+        }
+
+        /**
+         * Raw value text - quoted value with its quotes, or unquoted text up to the next &, | or closing parenthesis.
+         */
+        private String readValue() {
+            skipWhitespace();
+            int start = pos;
+            if (pos < input.length() && isQuote(input.charAt(pos))) {
+                readQuoted();
+                return input.substring(start, pos);
+            }
 
-                if (attr.isEmpty()) {
-                    throw new QuerySyntaxException("Missing field name before operator '" + mapping.symbol + "'");
+            int depth = 0;
+            while (pos < input.length()) {
+                char c = input.charAt(pos);
+                if (c == '&' || c == '|' || (c == ')' && depth == 0)) {
+                    break;
                 }
-
-                return new Condition(attr, mapping.operation, value);
+                if (c == '(') depth++;
+                if (c == ')') depth--;
+                pos++;
+            }
+            String value = input.substring(start, pos).trim();
+            if (value.isEmpty()) {
+                throw new QuerySyntaxException("Missing value after operator", start);
             }
+            return value;
         }
 
-        throw new QuerySyntaxException("Invalid condition: '" + input + "'. Expected format: field operator value. " +
-                "Supported operators: =, !=, ~, !~, >, <, >=, <=, IS NULL, IS NOT NULL, IN, NOT IN");
-    }
-
-    /**
-     * Find operator index, making sure we're not inside quotes.
-     */
-    private static int findOperatorIndex(String input, String operator) {
-        boolean inQuotes = false;
-        char quoteChar = 0;
-
-        for (int i = 0; i <= input.length() - operator.length(); i++) {
-            char c = input.charAt(i);
-
-            // Track quote state
-            if ((c == '\'' || c == '"') && (i == 0 || input.charAt(i - 1) != '\\')) {
-                if (!inQuotes) {
-                    inQuotes = true;
-                    quoteChar = c;
-                } else if (c == quoteChar) {
-                    inQuotes = false;
-                }
+        private List<String> readInValues() {
+            skipWhitespace();
+            if (!consume('(')) {
+                throw new QuerySyntaxException("Expected '(' after IN", pos);
             }
 
-            if (!inQuotes && input.substring(i).startsWith(operator)) {
-                // Make sure we're not matching a longer operator
-                // e.g., when looking for '=' we shouldn't match '!=' or '>=' or '<='
-                if (operator.equals("=") && i > 0) {
-                    char prev = input.charAt(i - 1);
-                    if (prev == '!' || prev == '>' || prev == '<') {
-                        continue;
+            List<String> values = new ArrayList<>();
+            while (true) {
+                skipWhitespace();
+                String value;
+                if (pos < input.length() && isQuote(input.charAt(pos))) {
+                    int start = pos;
+                    readQuoted();
+                    value = input.substring(start + 1, pos - 1);
+                } else {
+                    int start = pos;
+                    while (pos < input.length() && input.charAt(pos) != ',' && input.charAt(pos) != ')') {
+                        pos++;
                     }
+                    value = input.substring(start, pos).trim();
                 }
-                if (operator.equals("~") && i > 0 && input.charAt(i - 1) == '!') {
-                    continue;
+                if (!value.isEmpty()) {
+                    values.add(value);
                 }
-                if (operator.equals(">") && i + 1 < input.length() && input.charAt(i + 1) == '=') {
+
+                if (consume(',')) {
                     continue;
                 }
-                if (operator.equals("<") && i + 1 < input.length() && input.charAt(i + 1) == '=') {
-                    continue;
+                if (consume(')')) {
+                    break;
                 }
-                return i;
+                throw new QuerySyntaxException("Expected ',' or ')' in IN values", pos);
             }
+
+            if (values.isEmpty()) {
+                throw new QuerySyntaxException("IN clause requires at least one value", pos);
+            }
+            return values;
         }
-        return -1;
-    }
 
-    private static List<String> parseInValues(String valuesPart) {
-        List<String> values = new ArrayList<>();
-        StringBuilder current = new StringBuilder();
-        boolean inQuotes = false;
-        char quoteChar = 0;
-
-        for (int i = 0; i < valuesPart.length(); i++) {
-            char c = valuesPart.charAt(i);
-
-            if ((c == '\'' || c == '"') && (i == 0 || valuesPart.charAt(i - 1) != '\\')) {
-                if (!inQuotes) {
-                    inQuotes = true;
-                    quoteChar = c;
-                } else if (c == quoteChar) {
-                    inQuotes = false;
+        private void readQuoted() {
+            int start = pos;
+            char quote = input.charAt(pos++);
+            while (pos < input.length()) {
+                char c = input.charAt(pos++);
+                if (c == quote && input.charAt(pos - 2) != '\\') {
+                    return;
                 }
-                continue; // Don't include quote chars in value
             }
+            throw new QuerySyntaxException("Unclosed quote in query", start);
+        }
 
-            if (c == ',' && !inQuotes) {
-                String val = current.toString().trim();
-                if (!val.isEmpty()) {
-                    values.add(val);
-                }
-                current.setLength(0);
-            } else {
-                current.append(c);
+        private boolean consume(char expected) {
+            skipWhitespace();
+            if (pos < input.length() && input.charAt(pos) == expected) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean consumeKeyword(String keyword) {
+            skipWhitespace();
+            int end = pos + keyword.length();
+            if (input.regionMatches(true, pos, keyword, 0, keyword.length())
+                    && (end == input.length() || !isAttributeChar(input.charAt(end)))) {
+                pos = end;
+                return true;
             }
+            return false;
         }
 
-        // Add last value
-        String val = current.toString().trim();
-        if (!val.isEmpty()) {
-            values.add(val);
+        private void skipWhitespace() {
+            while (pos < input.length() && Character.isWhitespace(input.charAt(pos))) {
+                pos++;
+            }
         }
 
-        if (values.isEmpty()) {
-            throw new QuerySyntaxException("IN clause requires at least one value");
+        static boolean isAttributeChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '[' || c == ']';
         }
 
-        return values;
+        private static boolean isQuote(char c) {
+            return c == '\'' || c == '"';
+        }
     }
 
     private static Object parseValue(String valueStr, SearchOperation operation) {
@@ -447,26 +507,44 @@ public class SearchRequestQueryTranslator {
 
     private static List<String> validateExpression(Expression expr, Class<?> entityClass) {
         List<String> warnings = new ArrayList<>();
-        Set<String> availableFields = new HashSet<>(getAvailableFields(entityClass));
-
-        validateExpressionRecursive(expr, availableFields, warnings);
+        validateExpressionRecursive(expr, EntityMetadataRegistry.get(entityClass), warnings);
         return warnings;
     }
 
-    private static void validateExpressionRecursive(Expression expr, Set<String> availableFields, List<String> warnings) {
+    private static void validateExpressionRecursive(Expression expr, EntityMetadata metadata, List<String> warnings) {
         if (expr instanceof Condition cond) {
             // Check if field exists (basic check - doesn't handle nested paths perfectly)
             String baseField = cond.attribute.split("\\.")[0].replace("[", "").replace("]", "");
-            if (!availableFields.contains(baseField) && !availableFields.contains(cond.attribute)) {
+            if (metadata.getField(baseField) == null && metadata.getField(cond.attribute) == null) {
                 warnings.add("Field '" + cond.attribute + "' may not exist in entity");
+            } else {
+                validateValue(cond, metadata.getField(cond.attribute), warnings);
             }
         } else if (expr instanceof GroupExpression group) {
             for (Expression subExpr : group.expressions) {
-                validateExpressionRecursive(subExpr, availableFields, warnings);
+                validateExpressionRecursive(subExpr, metadata, warnings);
             }
         }
     }
 
+    /**
+     * Checks that the value can be converted to the attribute type the same way the search does it, see {@link ValueConverter}.
+     */
+    private static void validateValue(Condition cond, Field field, List<String> warnings) {
+        if (field == null || cond.value == null || cond.operation == SearchOperation.LIKE_OPERATION
+                || cond.operation == SearchOperation.NOT_LIKE_OPERATION) {
+            return;
+        }
+        try {
+            Object converted = ValueConverter.forType(field.getType()).convert(cond.value);
+            if (converted == null || (converted instanceof Collection<?> values && values.contains(null))) {
+                warnings.add("Value " + cond.value + " is not a valid " + field.getType().getSimpleName() + " for field '" + cond.attribute + "'");
+            }
+        } catch (RuntimeException e) {
+            warnings.add("Value " + cond.value + " is not a valid " + field.getType().getSimpleName() + " for field '" + cond.attribute + "'");
+        }
+    }
+
     private static String buildSearchRequestFromExpression(
             Expression expr,
             Class<?> entityClass,
@@ -500,6 +578,9 @@ public class SearchRequestQueryTranslator {
     public interface Expression {
     }
 
+    /**
+     * Parsed expressions are cached and shared - they are immutable.
+     */
     public static class Condition implements Expression {
         public final String attribute;
         public final SearchOperation operation;
@@ -508,7 +589,7 @@ public class SearchRequestQueryTranslator {
         public Condition(String attribute, SearchOperation operation, Object value) {
             this.attribute = attribute;
             this.operation = operation;
-            this.value = value;
+            this.value = value instanceof List<?> values ? List.copyOf(values) : value;
         }
     }
 
@@ -518,7 +599,7 @@ public class SearchRequestQueryTranslator {
 
         public GroupExpression(Operator operator, List<Expression> expressions) {
             this.operator = operator;
-            this.expressions = expressions;
+            this.expressions = List.copyOf(expressions);
         }
     }
 
@@ -564,12 +645,28 @@ public class SearchRequestQueryTranslator {
      * Exception thrown when query syntax is invalid.
      */
     public static class QuerySyntaxException extends RuntimeException {
+        private final int position;
+
         public QuerySyntaxException(String message) {
             super(message);
+            this.position = -1;
+        }
+
+        public QuerySyntaxException(String message, int position) {
+            super(message + " at position " + (position + 1));
+            this.position = position;
         }
 
         public QuerySyntaxException(String message, Throwable cause) {
             super(message, cause);
+            this.position = -1;
+        }
+
+        /**
+         * Zero based offset in the query where the error was found, -1 when unknown.
+         */
+        public int getPosition() {
+            return position;
         }
     }
 }
@@ -0,0 +1,221 @@
+package com.bervan.common.search;
+
+import com.bervan.common.config.BervanViewConfig;
+import com.bervan.common.service.AuthService;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnit;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.PluralAttribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in cache of search results, shared by all {@link SearchService} instances. Disabled by default
+ * (bervan.search.result-cache.enabled), an entity is cached only when its autoconfig yml sets resultCacheTtlSeconds.
+ * <p>
+ * Keys contain the normalized request (plan key + criterion values + paging), the owners visible to the logged user
+ * and the change versions of the entity and of all entities it is associated with. A version is bumped by
+ * {@link com.bervan.common.BervanBaseRepositoryImpl} on every save and delete and again after the transaction ends,
+ * so entries loaded before a change are never read again and just age out. Rows changed without the repository
+ * (native queries, other applications) are visible only after the TTL.
+ * <p>
+ * Only rows that are not managed entities are cached: searches with columnsToFetch cache the column values and map
+ * them to new entity instances on every read, projections cache records and tuple backed proxies, which are read-only.
+ * <p>
+ * Facet counts ({@link SearchService#countFacets}) are cached for all entities with the same keys, for
+ * bervan.search.facet-cache.ttl-seconds (0 disables it).
+ */
+@Component
+public class SearchResultCache {
+    private static final Map<String, AtomicLong> VERSIONS = new ConcurrentHashMap<>();
+    private static final Object CHANGED_TYPES_RESOURCE = new Object();
+    private final Logger log = LoggerFactory.getLogger(SearchResultCache.class);
+    private final Map<Class<?>, List<String>> dependentTypes = new ConcurrentHashMap<>();
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private BervanViewConfig bervanViewConfig;
+    @Value("${bervan.search.result-cache.enabled:false}")
+    private boolean enabled;
+    @Value("${bervan.search.result-cache.max-size:1000}")
+    private int maxSize;
+    @Value("${bervan.search.facet-cache.ttl-seconds:30}")
+    private int facetTtlSeconds;
+    private LruCache<String, Entry> results;
+    private LruCache<String, Entry> facets;
+
+    /**
+     * Marks cached results of the entity type (and of its superclasses) as outdated. Inside a transaction the type
+     * is marked again after the transaction ends, so results loaded by other threads before the commit are not reused.
+     */
+    public static void entityChanged(Class<?> entityType) {
+        bumpVersion(entityType);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        Set<Class<?>> changedTypes = (Set<Class<?>>) TransactionSynchronizationManager.getResource(CHANGED_TYPES_RESOURCE);
+        if (changedTypes == null) {
+            Set<Class<?>> typesOfTransaction = new HashSet<>();
+            changedTypes = typesOfTransaction;
+            TransactionSynchronizationManager.bindResource(CHANGED_TYPES_RESOURCE, typesOfTransaction);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CHANGED_TYPES_RESOURCE);
+                    typesOfTransaction.forEach(SearchResultCache::bumpVersion);
+                }
+            });
+        }
+        changedTypes.add(entityType);
+    }
+
+    private static void bumpVersion(Class<?> entityType) {
+        for (Class<?> type = entityType; type != null && type != Object.class; type = type.getSuperclass()) {
+            VERSIONS.computeIfAbsent(type.getName(), name -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    private static long getVersion(String typeName) {
+        AtomicLong version = VERSIONS.get(typeName);
+        return version == null ? 0 : version.get();
+    }
+
+    @PostConstruct
+    public void init() {
+        results = new LruCache<>(maxSize);
+        facets = new LruCache<>(maxSize);
+    }
+
+    public boolean isCacheable(Class<?> entityType) {
+        return enabled && bervanViewConfig.getResultCacheTtlSeconds(entityType) != null;
+    }
+
+    /**
+     * Prefixes the normalized request with the visibility scope of the logged user and the current versions
+     * of the entity and its associations.
+     */
+    public String buildKey(Class<?> entityType, String requestKey) {
+        StringBuilder key = new StringBuilder(requestKey.length() + 128);
+        key.append(getVisibilityScope()).append('|');
+        for (String typeName : getDependentTypes(entityType)) {
+            key.append(getVersion(typeName)).append(',');
+        }
+        return key.append('|').append(requestKey).toString();
+    }
+
+    public Object get(String key) {
+        return get(results, key);
+    }
+
+    public void put(Class<?> entityType, String key, Object value) {
+        Integer ttlSeconds = bervanViewConfig.getResultCacheTtlSeconds(entityType);
+        if (ttlSeconds != null && ttlSeconds > 0) {
+            results.put(key, new Entry(value, System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        }
+    }
+
+    public Object getFacets(String key) {
+        return facetTtlSeconds > 0 ? get(facets, key) : null;
+    }
+
+    public void putFacets(String key, Object value) {
+        if (facetTtlSeconds > 0) {
+            facets.put(key, new Entry(value, System.nanoTime() + TimeUnit.SECONDS.toNanos(facetTtlSeconds)));
+        }
+    }
+
+    public void invalidateAll() {
+        results.invalidateAll();
+        facets.invalidateAll();
+    }
+
+    private static Object get(LruCache<String, Entry> cache, String key) {
+        Entry entry = cache.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt > 0) {
+            cache.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getHits() {
+        return results.getHits();
+    }
+
+    public long getMisses() {
+        return results.getMisses();
+    }
+
+    public double getHitRate() {
+        return results.getHitRate();
+    }
+
+    public int size() {
+        return results.size();
+    }
+
+    @Scheduled(cron = "0 0 * * * *")
+    public void logStatistics() {
+        if (enabled) {
+            log.info("Search result cache: {}", results);
+        }
+        if (facetTtlSeconds > 0) {
+            log.info("Facet count cache: {}", facets);
+        }
+    }
+
+    private String getVisibilityScope() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return "system";
+        }
+        List<UUID> visibleOwnerIds = new ArrayList<>(AuthService.getVisibleOwnerIds());
+        Collections.sort(visibleOwnerIds);
+        return visibleOwnerIds.toString();
+    }
+
+    /**
+     * The entity and the entities it is associated with - criteria on [relation].field and owner checks depend on them.
+     */
+    private List<String> getDependentTypes(Class<?> entityType) {
+        return dependentTypes.computeIfAbsent(entityType, type -> {
+            Set<String> typeNames = new TreeSet<>();
+            typeNames.add(type.getName());
+            EntityType<?> model = entityManagerFactory.getMetamodel().entity(type);
+            for (Attribute<?, ?> attribute : model.getAttributes()) {
+                if (attribute.isAssociation()) {
+                    typeNames.add(attribute instanceof PluralAttribute<?, ?, ?> plural
+                            ? plural.getElementType().getJavaType().getName()
+                            : attribute.getJavaType().getName());
+                }
+            }
+            return List.copyOf(typeNames);
+        });
+    }
+
+    private record Entry(Object value, long expiresAt) {
+    }
+}
@@ -1,25 +1,44 @@
 package com.bervan.common.search;
 
+import com.bervan.common.EntityMetadata;
+import com.bervan.common.EntityMetadataRegistry;
+import com.bervan.common.search.model.Aggregate;
+import com.bervan.common.search.model.AggregateFunction;
+import com.bervan.common.search.model.AggregationBucket;
+import com.bervan.common.search.model.CountPolicy;
+import com.bervan.common.search.model.KeysetCursor;
 import com.bervan.common.search.model.Operator;
 import com.bervan.common.search.model.SearchCriteria;
+import com.bervan.common.search.model.SearchOperation;
 import com.bervan.common.search.model.SearchResponse;
-import com.bervan.common.search.model.SortDirection;
+import com.bervan.common.search.model.SortKey;
 import com.bervan.history.model.AbstractBaseEntity;
 import com.bervan.history.model.Persistable;
 import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.*;
+import org.hibernate.Hibernate;
 import org.hibernate.internal.util.StringHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
 
 import java.lang.reflect.Field;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static com.bervan.common.search.SearchRequest.FINAL_GROUP_CONSTANT;
 
@@ -30,24 +49,20 @@ public class SearchService {
     @PersistenceContext
     protected EntityManager entityManager;
     protected CriteriaBuilder criteriaBuilder;
-
-    private Object getPrimitiveTypeValue(Object value, Field field) {
-        if (value == null) return null;
-
-        String valueAsString = String.valueOf(value);
-        if (field.getAnnotatedType().getType().equals(Long.class) || field.getAnnotatedType().getType().equals(long.class)) {
-            value = Long.valueOf(valueAsString);
-        } else if (field.getAnnotatedType().getType().equals(String.class)) {
-            value = valueAsString;
-        } else if (field.getAnnotatedType().getType().equals(Integer.class) || field.getAnnotatedType().getType().equals(int.class)) {
-            value = Integer.valueOf(valueAsString);
-        } else if (field.getAnnotatedType().getType().equals(Double.class) || field.getAnnotatedType().getType().equals(double.class)) {
-            value = Double.valueOf(valueAsString);
-        } else if (field.getAnnotatedType().getType().equals(Boolean.class) || field.getAnnotatedType().getType().equals(boolean.class)) {
-            value = Boolean.valueOf(valueAsString);
-        }
-        return value;
-    }
+    @Autowired
+    protected SearchQueryPlanCache planCache;
+    @Autowired
+    protected PlatformTransactionManager transactionManager;
+    @Autowired
+    protected SearchRequestOptimizer requestOptimizer;
+    @Autowired
+    protected FullTextSearch fullTextSearch;
+    @Autowired
+    protected TrigramIndex trigramIndex;
+    @Autowired
+    protected SearchResultCache resultCache;
+    @Value("${bervan.search.stream.fetch-size:1000}")
+    private int defaultFetchSize;
 
     @PostConstruct
     public void init() {
@@ -58,78 +73,587 @@ public class SearchService {
         try {
             init();
             validateOptions(options);
+            searchRequest = requestOptimizer.optimize(searchRequest, getEntityToFind(options));
             Class<? extends AbstractBaseEntity> entityToFind = getEntityToFind(options);
 
-            SortDirection sortDirection = options.getSortDirection();
-            String sortField = options.getSortField();
             Integer page = options.getPage();
             Integer pageSize = options.getPageSize();
 
-            CriteriaQuery mainQuery;
-            Root<? extends AbstractBaseEntity> root;
-
-            if (options.getColumnsToFetch() != null && !options.getColumnsToFetch().isEmpty()) {
-                mainQuery = criteriaBuilder.createQuery(Object[].class);
-                root = mainQuery.from(entityToFind);
-
-                List<String> columnsToFetch = options.getColumnsToFetch();
-                Selection<?>[] selections = columnsToFetch.stream()
-                        .map(root::get)
-                        .toArray(Selection[]::new);
-
-                mainQuery.select(criteriaBuilder.array(selections));
-            } else {
-                mainQuery = criteriaBuilder.createQuery(entityToFind);
-                root = mainQuery.from(entityToFind);
+            String resultKey = null;
+            if (options.getColumnsToFetch() != null && !options.getColumnsToFetch().isEmpty() && resultCache.isCacheable(entityToFind)) {
+                resultKey = resultCache.buildKey(entityToFind, buildResultKey(searchRequest, options));
+                CachedPage cached = (CachedPage) resultCache.get(resultKey);
+                if (cached != null) {
+                    return cached.toResponse(ProjectionMapper.forColumns((Class<T>) entityToFind, options.getColumnsToFetch()));
+                }
             }
 
-            Predicate predicates = null;
-            if (searchRequest != null && searchRequest.groups.size() > 0) {
-                predicates = buildMainPredicate(searchRequest, root, entityToFind);
-                mainQuery.where(predicates);
-            }
+            SearchQueryPlan plan = getQueryPlan(searchRequest, options);
 
-            mainQuery.orderBy(createOrder(criteriaBuilder, root, sortField, isAscendingSortDirection(sortDirection)));
+            boolean lookAhead = !options.isCountQuery() && options.getCountPolicy() == CountPolicy.ESTIMATED;
+            boolean hasMoreRows = false;
+
+            KeysetCursor keysetCursor = getActiveKeysetCursor(options);
+            boolean backward = keysetCursor != null && keysetCursor == options.getKeysetBefore();
 
             List resultList = new ArrayList<>();
             if (!options.isCountQuery()) {
-                TypedQuery resultQuery = entityManager.createQuery(mainQuery);
-                resultQuery.setFirstResult(pageSize * (page));
-                resultQuery.setMaxResults(pageSize);
+                TypedQuery resultQuery = entityManager.createQuery(plan.getMainQuery());
+                bindParameters(resultQuery, plan.getMainQueryParameters(), searchRequest);
+                if (keysetCursor != null) {
+                    bindKeysetParameters(resultQuery, plan, keysetCursor);
+                } else {
+                    resultQuery.setFirstResult(pageSize * (page));
+                }
+                resultQuery.setMaxResults(lookAhead ? pageSize + 1 : pageSize);
                 resultList = resultQuery.getResultList();
+                if (lookAhead && resultList.size() > pageSize) {
+                    hasMoreRows = true;
+                    resultList = resultList.subList(0, pageSize);
+                }
+                if (backward) {
+                    resultList = new ArrayList<>(resultList);
+                    Collections.reverse(resultList);
+                }
             }
 
+            List<?> rows = resultList;
             if (options.getColumnsToFetch() != null && !options.getColumnsToFetch().isEmpty()) {
-                resultList = resultList.stream().map(row -> {
-                    try {
-                        T instance = (T) entityToFind.getDeclaredConstructor().newInstance();
-                        for (int i = 0; i < options.getColumnsToFetch().size(); i++) {
-                            Field field = entityToFind.getDeclaredField(options.getColumnsToFetch().get(i));
-                            field.setAccessible(true);
-                            field.set(instance, ((Object[]) row)[i]);
-                        }
-                        return instance;
-                    } catch (Exception e) {
-                        throw new RuntimeException("Error mapping row to entity", e);
-                    }
-                }).toList();
+                ProjectionMapper<T> mapper = ProjectionMapper.forColumns((Class<T>) entityToFind, options.getColumnsToFetch());
+                List<T> mappedRows = new ArrayList<>(resultList.size());
+                for (Object row : resultList) {
+                    mappedRows.add(mapper.map(row));
+                }
+                resultList = mappedRows;
             }
 
-            Long allFound = getHowManyItemsExist(searchRequest, entityToFind);
-
-            return new SearchResponse(resultList, resultList.size(), page, allFound);
+            SearchResponse response = new SearchResponse(resultList, resultList.size(), page, null);
+            countAllFound(response, plan, searchRequest, options, hasMoreRows && !backward, backward);
+            if (options.isKeysetPagination() && !resultList.isEmpty()) {
+                response.setPreviousPageCursor(createKeysetCursor(resultList.get(0), options.getSortKeys(), entityToFind));
+                response.setNextPageCursor(createKeysetCursor(resultList.get(resultList.size() - 1), options.getSortKeys(), entityToFind));
+            }
+            if (resultKey != null) {
+                resultCache.put(entityToFind, resultKey, new CachedPage(new ArrayList<>(rows), response));
+            }
+            return response;
         } catch (Exception e) {
             log.error("Could not perform search!", e);
             throw new RuntimeException("Could not perform search!");
         }
     }
 
-    private Order createOrder(CriteriaBuilder cb, Root<?> root, String sortField, boolean ascending) {
+    /**
+     * Streams all rows matching the request in sort order without loading all of them at once. Page, page size and
+     * count policy are ignored. Rows are loaded in batches of {@link SearchQueryOption#getFetchSize()}, every batch is
+     * a separate query (see {@link SearchBatchIterator}), so no result set is left open while rows are processed and
+     * eager associations load normally. The persistence context is cleared before every next batch, so rows handed
+     * out earlier are detached - lazy associations must be read while the row is processed.
+     * Should be called inside a transaction (see {@link #forEach}), otherwise rows are detached right away.
+     */
+    public <T extends Persistable> Stream<T> stream(SearchRequest searchRequest, SearchQueryOption options) {
+        validateOptions(options);
+        if (options.isKeysetPagination()) {
+            throw new RuntimeException("Keyset pagination is not supported for streaming!");
+        }
+        int fetchSize = options.getFetchSize() != null ? options.getFetchSize() : defaultFetchSize;
+        boolean projection = options.getColumnsToFetch() != null && !options.getColumnsToFetch().isEmpty();
+
+        Iterator<T> iterator = new SearchBatchIterator<T>(options, fetchSize, batchOptions -> search(searchRequest, batchOptions),
+                () -> {
+                    if (!projection) {
+                        entityManager.clear();
+                    }
+                });
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Runs {@link #stream} in a read only transaction and passes every row to the action. Rows must not be modified
+     * and saved from the action - changes are not flushed in a read only transaction.
+     */
+    public <T extends Persistable> void forEach(SearchRequest searchRequest, SearchQueryOption options, Consumer<T> action) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<T> rows = stream(searchRequest, options)) {
+                rows.forEach(action);
+            }
+        });
+    }
+
+    /**
+     * Selects rows directly into a record (constructor expression) or an interface (tuple backed proxy), see {@link DtoProjection}.
+     * Results are not entities - nothing is attached to the persistence context and no associations are loaded.
+     * Count policy and keyset pagination are not supported for projections.
+     */
+    public <R> List<R> searchProjection(SearchRequest searchRequest, SearchQueryOption options, Class<R> projectionType) {
+        try {
+            init();
+            validateOptions(options);
+            searchRequest = requestOptimizer.optimize(searchRequest, getEntityToFind(options));
+
+            String planKey = SearchQueryPlanCache.buildKey(searchRequest, options) + "|P:" + projectionType.getName();
+            String resultKey = null;
+            if (resultCache.isCacheable(getEntityToFind(options))) {
+                resultKey = resultCache.buildKey(getEntityToFind(options), buildResultKey(searchRequest, options) + "|P:" + projectionType.getName());
+                List<R> cached = (List<R>) resultCache.get(resultKey);
+                if (cached != null) {
+                    return new ArrayList<>(cached);
+                }
+            }
+
+            SearchQueryPlan plan = planCache.get(planKey);
+            if (plan == null) {
+                plan = compileProjectionPlan(searchRequest, options, projectionType);
+                planCache.put(planKey, plan);
+            }
+
+            TypedQuery<?> query = entityManager.createQuery(plan.getMainQuery());
+            bindParameters(query, plan.getMainQueryParameters(), searchRequest);
+            query.setFirstResult(options.getPageSize() * options.getPage());
+            query.setMaxResults(options.getPageSize());
+            List<?> rows = query.getResultList();
+
+            List<R> result;
+            if (projectionType.isInterface()) {
+                result = new ArrayList<>(rows.size());
+                for (Object row : rows) {
+                    result.add(DtoProjection.createInterfaceProjection(projectionType, (Tuple) row));
+                }
+            } else {
+                result = (List<R>) rows;
+            }
+            if (resultKey != null) {
+                resultCache.put(getEntityToFind(options), resultKey, new ArrayList<>(result));
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("Could not perform projection search!", e);
+            throw new RuntimeException("Could not perform projection search!");
+        }
+    }
+
+    private SearchQueryPlan compileProjectionPlan(SearchRequest searchRequest, SearchQueryOption options, Class<?> projectionType) throws NoSuchFieldException {
+        Class<? extends AbstractBaseEntity> entityToFind = getEntityToFind(options);
+        List<String> properties = DtoProjection.getProperties(projectionType);
+
+        CriteriaQuery query;
+        if (projectionType.isInterface()) {
+            query = criteriaBuilder.createTupleQuery();
+        } else {
+            query = criteriaBuilder.createQuery(projectionType);
+        }
+        Root<? extends AbstractBaseEntity> root = query.from(entityToFind);
+
+        if (projectionType.isInterface()) {
+            query.multiselect(properties.stream()
+                    .map(property -> root.get(property).alias(property))
+                    .toArray(Selection[]::new));
+        } else {
+            query.select(criteriaBuilder.construct(projectionType, properties.stream()
+                    .map(root::get)
+                    .toArray(Selection[]::new)));
+        }
+
+        List<SearchQueryPlan.Parameter> parameters = new ArrayList<>();
+        JoinPlanner joinPlanner = new JoinPlanner(criteriaBuilder, query, root);
+        if (searchRequest != null && searchRequest.groups.size() > 0) {
+            query.where(buildMainPredicate(searchRequest, joinPlanner, root, entityToFind, parameters));
+        }
+        query.orderBy(createOrders(joinPlanner, options.getSortKeys(), false));
+
+        return new SearchQueryPlan(query, parameters, null, List.of(), List.of());
+    }
+
+    /**
+     * Plan key extended with everything else that changes the result: criterion values, paging and the keyset cursor.
+     */
+    private String buildResultKey(SearchRequest searchRequest, SearchQueryOption options) {
+        StringBuilder key = new StringBuilder(SearchQueryPlanCache.buildKey(searchRequest, options));
+        key.append("|V:");
+        if (searchRequest != null) {
+            for (Group group : searchRequest.groups) {
+                for (String criterionId : group.criteriaIds) {
+                    Criterion criterion = searchRequest.getCriterion(criterionId);
+                    key.append(criterion == null ? "" : String.valueOf(criterion.value)).append('\u0001');
+                }
+            }
+        }
+        key.append("|P:").append(options.getPage()).append(',').append(options.getPageSize())
+                .append(',').append(options.isCountQuery()).append(',').append(options.getCountPolicy());
+        KeysetCursor keysetCursor = getActiveKeysetCursor(options);
+        if (keysetCursor != null) {
+            key.append("|K:").append(keysetCursor.getSortValues());
+        }
+        return key.toString();
+    }
+
+    /**
+     * Cached page of a search with columnsToFetch. Raw column values are cached and mapped to new entity instances
+     * on every read - views edit grid rows in place, shared instances would leak the edits to other sessions.
+     */
+    private record CachedPage(List<?> rows, Integer currentPage, Long allFound, boolean allFoundEstimated,
+                              KeysetCursor previousPageCursor, KeysetCursor nextPageCursor) {
+        private CachedPage(List<?> rows, SearchResponse<?> response) {
+            this(rows, response.getCurrentPage(), response.getAllFound(), response.isAllFoundEstimated(),
+                    response.getPreviousPageCursor(), response.getNextPageCursor());
+        }
+
+        private <T extends Persistable> SearchResponse<T> toResponse(ProjectionMapper<T> mapper) {
+            List<T> resultList = new ArrayList<>(rows.size());
+            for (Object row : rows) {
+                resultList.add(mapper.map(row));
+            }
+            SearchResponse<T> response = new SearchResponse<>(resultList, resultList.size(), currentPage, allFound);
+            response.setAllFoundEstimated(allFoundEstimated);
+            response.setPreviousPageCursor(previousPageCursor);
+            response.setNextPageCursor(nextPageCursor);
+            return response;
+        }
+    }
+
+    /**
+     * Groups rows matching the request and computes the aggregates in the database with one query, using the same
+     * predicates as {@link #search}. Buckets are ordered by time bucket and group by values. Grouping by a path through
+     * a relation skips rows without the related entity.
+     */
+    public List<AggregationBucket> aggregate(SearchRequest searchRequest, AggregationOption aggregation) {
+        try {
+            init();
+            throwIfNullOrEmpty(aggregation.getEntityToFind(), "entityToFind");
+            if (aggregation.getAggregates().isEmpty()) {
+                throw new RuntimeException("At least one aggregate is required!");
+            }
+            searchRequest = requestOptimizer.optimize(searchRequest, aggregation.getEntityToFind());
+
+            String planKey = SearchQueryPlanCache.buildKey(searchRequest, new SearchQueryOption(aggregation.getEntityToFind()))
+                    + "|" + aggregation.shapeKey();
+            SearchQueryPlan plan = planCache.get(planKey);
+            if (plan == null) {
+                plan = compileAggregationPlan(searchRequest, aggregation);
+                planCache.put(planKey, plan);
+            }
+
+            TypedQuery<Tuple> query = entityManager.createQuery((CriteriaQuery<Tuple>) plan.getMainQuery());
+            bindParameters(query, plan.getMainQueryParameters(), searchRequest);
+            query.setMaxResults(aggregation.getMaxBuckets());
+
+            List<String> groupBy = aggregation.getGroupBy();
+            List<Aggregate> aggregates = aggregation.getAggregates();
+            List<AggregationBucket> buckets = new ArrayList<>();
+            for (Tuple row : query.getResultList()) {
+                Map<String, Object> keys = new LinkedHashMap<>();
+                for (int i = 0; i < groupBy.size(); i++) {
+                    keys.put(groupBy.get(i), row.get("g" + i));
+                }
+                LocalDateTime timeBucket = aggregation.getTimeBucket() == null ? null
+                        : aggregation.getTimeBucket().parse(row.get("t", String.class));
+                Map<Aggregate, Object> values = new LinkedHashMap<>();
+                for (int i = 0; i < aggregates.size(); i++) {
+                    values.put(aggregates.get(i), row.get("a" + i));
+                }
+                buckets.add(new AggregationBucket(keys, timeBucket, values));
+            }
+            return buckets;
+        } catch (Exception e) {
+            log.error("Could not perform aggregation!", e);
+            throw new RuntimeException("Could not perform aggregation!");
+        }
+    }
+
+    /**
+     * Counts rows per value of every facet field, so checkbox filters can show how many rows each value has.
+     * Counts of a field are computed without the field's own filter group (facetGroupsByField: field -> group id),
+     * otherwise unchecked values would always count zero. One grouped COUNT per field, the counts are cached per request
+     * until the entity changes, see {@link SearchResultCache}.
+     */
+    public Map<String, Map<Object, Long>> countFacets(SearchRequest searchRequest, Class<? extends AbstractBaseEntity> entityToFind,
+                                                      Map<String, String> facetGroupsByField) {
+        SearchRequest request = searchRequest == null ? new SearchRequest() : searchRequest;
+        String cacheKey = resultCache.buildKey(entityToFind, buildResultKey(request, new SearchQueryOption(entityToFind))
+                + "|F:" + new TreeMap<>(facetGroupsByField));
+        Map<String, Map<Object, Long>> cached = (Map<String, Map<Object, Long>>) resultCache.getFacets(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        Map<String, Map<Object, Long>> facets = new LinkedHashMap<>();
+        for (Map.Entry<String, String> facet : facetGroupsByField.entrySet()) {
+            AggregationOption aggregation = new AggregationOption(entityToFind);
+            aggregation.setGroupBy(List.of(facet.getKey()));
+            Map<Object, Long> counts = new LinkedHashMap<>();
+            for (AggregationBucket bucket : aggregate(request.withoutGroup(facet.getValue()), aggregation)) {
+                counts.put(bucket.getKey(facet.getKey()), bucket.getCount());
+            }
+            facets.put(facet.getKey(), Collections.unmodifiableMap(counts));
+        }
+        facets = Collections.unmodifiableMap(facets);
+        resultCache.putFacets(cacheKey, facets);
+        return facets;
+    }
+
+    private SearchQueryPlan compileAggregationPlan(SearchRequest searchRequest, AggregationOption aggregation) throws NoSuchFieldException {
+        Class<? extends AbstractBaseEntity> entityToFind = aggregation.getEntityToFind();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<? extends AbstractBaseEntity> root = query.from(entityToFind);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        List<Expression<?>> grouping = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        if (aggregation.getTimeBucket() != null) {
+            resolveField(aggregation.getTimeField(), entityToFind);
+            Expression<String> timeBucket = criteriaBuilder.function(aggregation.getTimeBucket().getFunctionName(), String.class,
+                    SearchOperationsHelper.getExpression(root, aggregation.getTimeField()));
+            selections.add(timeBucket.alias("t"));
+            grouping.add(timeBucket);
+            orders.add(criteriaBuilder.asc(timeBucket));
+        }
+
+        List<String> groupBy = aggregation.getGroupBy();
+        for (int i = 0; i < groupBy.size(); i++) {
+            resolveField(groupBy.get(i), entityToFind);
+            Path<?> path = SearchOperationsHelper.getExpression(root, groupBy.get(i));
+            selections.add(path.alias("g" + i));
+            grouping.add(path);
+            orders.add(criteriaBuilder.asc(path));
+        }
+
+        List<Aggregate> aggregates = aggregation.getAggregates();
+        for (int i = 0; i < aggregates.size(); i++) {
+            selections.add(createAggregateExpression(root, aggregates.get(i), entityToFind).alias("a" + i));
+        }
+
+        query.multiselect(selections);
+        if (!grouping.isEmpty()) {
+            query.groupBy(grouping);
+            query.orderBy(orders);
+        }
+
+        List<SearchQueryPlan.Parameter> parameters = new ArrayList<>();
+        if (searchRequest != null && searchRequest.groups.size() > 0) {
+            query.where(buildMainPredicate(searchRequest, new JoinPlanner(criteriaBuilder, query, root), root, entityToFind, parameters));
+        }
+
+        return new SearchQueryPlan(query, parameters, null, List.of(), List.of());
+    }
+
+    private Expression<?> createAggregateExpression(Root<?> root, Aggregate aggregate, Class<? extends AbstractBaseEntity> entityToFind) throws NoSuchFieldException {
+        if (aggregate.getFunction() == AggregateFunction.COUNT) {
+            return criteriaBuilder.count(root);
+        }
+
+        resolveField(aggregate.getField(), entityToFind);
+        Path path = SearchOperationsHelper.getExpression(root, aggregate.getField());
+        return switch (aggregate.getFunction()) {
+            case SUM -> criteriaBuilder.sum(path);
+            case AVG -> criteriaBuilder.avg(path);
+            case MIN -> criteriaBuilder.least(path);
+            case MAX -> criteriaBuilder.greatest(path);
+            default -> throw new RuntimeException("Unsupported aggregate: " + aggregate);
+        };
+    }
+
+    private SearchQueryPlan getQueryPlan(SearchRequest searchRequest, SearchQueryOption options) throws NoSuchFieldException {
+        String planKey = SearchQueryPlanCache.buildKey(searchRequest, options);
+        SearchQueryPlan plan = planCache.get(planKey);
+        if (plan == null) {
+            plan = compileQueryPlan(searchRequest, options);
+            planCache.put(planKey, plan);
+        }
+        return plan;
+    }
+
+    private SearchQueryPlan compileQueryPlan(SearchRequest searchRequest, SearchQueryOption options) throws NoSuchFieldException {
+        Class<? extends AbstractBaseEntity> entityToFind = getEntityToFind(options);
+        boolean hasPredicate = searchRequest != null && searchRequest.groups.size() > 0;
+
+        CriteriaQuery mainQuery;
+        Root<? extends AbstractBaseEntity> root;
+
+        if (options.getColumnsToFetch() != null && !options.getColumnsToFetch().isEmpty()) {
+            mainQuery = criteriaBuilder.createQuery(Object[].class);
+            root = mainQuery.from(entityToFind);
+
+            List<String> columnsToFetch = options.getColumnsToFetch();
+            Selection<?>[] selections = columnsToFetch.stream()
+                    .map(root::get)
+                    .toArray(Selection[]::new);
+
+            mainQuery.select(criteriaBuilder.array(selections));
+        } else {
+            mainQuery = criteriaBuilder.createQuery(entityToFind);
+            root = mainQuery.from(entityToFind);
+        }
+
+        List<SearchQueryPlan.Parameter> mainQueryParameters = new ArrayList<>();
+        List<Predicate> mainPredicates = new ArrayList<>();
+        JoinPlanner joinPlanner = new JoinPlanner(criteriaBuilder, mainQuery, root);
+        if (hasPredicate) {
+            mainPredicates.add(buildMainPredicate(searchRequest, joinPlanner, root, entityToFind, mainQueryParameters));
+        }
+
+        List<SortKey> sortKeys = options.getSortKeys();
+        List<ParameterExpression<?>> keysetParameters = new ArrayList<>();
+        KeysetCursor keysetCursor = getActiveKeysetCursor(options);
+        // rows before the cursor are read in reversed order and reversed back after loading
+        boolean reversed = keysetCursor != null && keysetCursor == options.getKeysetBefore();
+        if (keysetCursor != null) {
+            for (SortKey sortKey : sortKeys) {
+                Field sortFieldDefinition = resolveField(sortKey.getField(), entityToFind);
+                keysetParameters.add(criteriaBuilder.parameter(ClassUtils.resolvePrimitiveIfNecessary(sortFieldDefinition.getType())));
+            }
+            mainPredicates.add(buildKeysetPredicate(joinPlanner, sortKeys, 0, reversed, keysetCursor.isInclusive(), keysetParameters));
+        }
+        mainQuery.orderBy(createOrders(joinPlanner, sortKeys, reversed));
+
+        if (!mainPredicates.isEmpty()) {
+            mainQuery.where(mainPredicates.toArray(Predicate[]::new));
+        }
+
+        CriteriaQuery<Long> countQuery = criteriaBuilder.createQuery(Long.class);
+        Root<? extends AbstractBaseEntity> countRoot = countQuery.from(entityToFind);
+        countQuery.select(criteriaBuilder.count(countRoot));
+
+        List<SearchQueryPlan.Parameter> countQueryParameters = new ArrayList<>();
+        if (hasPredicate) {
+            countQuery.where(buildMainPredicate(searchRequest, new JoinPlanner(criteriaBuilder, countQuery, countRoot), countRoot,
+                    entityToFind, countQueryParameters));
+        }
+
+        return new SearchQueryPlan(mainQuery, mainQueryParameters, countQuery, countQueryParameters, keysetParameters);
+    }
+
+    private void bindParameters(TypedQuery query, List<SearchQueryPlan.Parameter> parameters, SearchRequest searchRequest) {
+        for (SearchQueryPlan.Parameter parameter : parameters) {
+            Group group = searchRequest.groups.get(parameter.getGroupIndex());
+            Criterion criterion = searchRequest.getCriterion(group.criteriaIds.get(parameter.getCriterionIndex()));
+            Object value = parameter.getConverter().convert(criterion.value);
+            if (parameter.getTextMatch() == SearchQueryPlan.TextMatch.FULL_TEXT) {
+                value = FullTextSearch.toBooleanModeQuery(value);
+            } else if (parameter.getTextMatch() == SearchQueryPlan.TextMatch.TRIGRAM) {
+                value = trigramIndex.findMatching(parameter.getField(), SearchOperationsHelper.wrapWithWildcards(value));
+            } else if (parameter.getTextMatch() == SearchQueryPlan.TextMatch.LIKE) {
+                value = SearchOperationsHelper.wrapWithWildcards(value);
+            }
+            query.setParameter(parameter.getExpression(), value);
+        }
+    }
+
+    /**
+     * Emits (a, b, id) > (?, ?, ?) as a > ? OR (a = ? AND (b > ? OR (b = ? AND id > ?))), every key compared in its own direction.
+     * The leading comparison can use an index on the first sort field (InnoDB secondary indexes contain the primary key,
+     * so rows with the same sort values are already ordered by id).
+     */
+    private Predicate buildKeysetPredicate(JoinPlanner joinPlanner, List<SortKey> sortKeys, int index, boolean reversed, boolean inclusive,
+                                           List<ParameterExpression<?>> parameters) {
+        SortKey sortKey = sortKeys.get(index);
+        Path path = joinPlanner.getPath(sortKey.getField());
+        ParameterExpression parameter = parameters.get(index);
+        boolean ascending = sortKey.isAscending() != reversed;
+        boolean last = index == sortKeys.size() - 1;
+
+        Predicate seekPredicate;
         if (ascending) {
-            return cb.asc(root.get(sortField));
+            seekPredicate = last && inclusive ? criteriaBuilder.greaterThanOrEqualTo(path, parameter) : criteriaBuilder.greaterThan(path, parameter);
         } else {
-            return cb.desc(root.get(sortField));
+            seekPredicate = last && inclusive ? criteriaBuilder.lessThanOrEqualTo(path, parameter) : criteriaBuilder.lessThan(path, parameter);
+        }
+        if (last) {
+            return seekPredicate;
+        }
+
+        return criteriaBuilder.or(seekPredicate, criteriaBuilder.and(criteriaBuilder.equal(path, parameter),
+                buildKeysetPredicate(joinPlanner, sortKeys, index + 1, reversed, inclusive, parameters)));
+    }
+
+    private void bindKeysetParameters(TypedQuery query, SearchQueryPlan plan, KeysetCursor keysetCursor) {
+        List<Object> sortValues = keysetCursor.getSortValues();
+        for (int i = 0; i < sortValues.size(); i++) {
+            query.setParameter((ParameterExpression) plan.getKeysetParameters().get(i), sortValues.get(i));
+        }
+    }
+
+    /**
+     * Cursor used to load the page, or null when the page is loaded with an offset. Cursors created for different
+     * sort fields, with a null sort value or for sort fields that may be NULL (nulls can't be compared, the seek
+     * predicate would skip such rows) are ignored.
+     */
+    public static KeysetCursor getActiveKeysetCursor(SearchQueryOption options) {
+        if (!options.isKeysetPagination()) {
+            return null;
+        }
+        KeysetCursor cursor = options.getKeysetAfter() != null ? options.getKeysetAfter() : options.getKeysetBefore();
+        if (cursor == null || !cursor.getSortFields().equals(options.getSortKeys().stream().map(SortKey::getField).toList())) {
+            return null;
+        }
+        if (cursor.getSortValues().contains(null)) {
+            return null;
+        }
+        if (options.getEntityToFind() != null) {
+            EntityMetadata metadata = EntityMetadataRegistry.get(options.getEntityToFind());
+            if (options.getSortKeys().stream().anyMatch(sortKey -> !metadata.isNonNullable(sortKey.getField()))) {
+                return null;
+            }
+        }
+        return cursor;
+    }
+
+    /**
+     * Keyset pagination pays off when the sort column is the id or is the leading column of an index. The column must
+     * not be nullable - a seek predicate (a > ?) never matches NULL, so rows without a value would be skipped.
+     */
+    public static boolean isKeysetPaginationSupported(Class<?> entity, String sortField) {
+        EntityMetadata metadata = EntityMetadataRegistry.get(entity);
+        return sortField != null && metadata.isIndexed(sortField) && metadata.isNonNullable(sortField);
+    }
+
+    private KeysetCursor createKeysetCursor(Object row, List<SortKey> sortKeys, Class<? extends AbstractBaseEntity> entityToFind) {
+        try {
+            List<String> sortFields = new ArrayList<>(sortKeys.size());
+            List<Object> sortValues = new ArrayList<>(sortKeys.size());
+            for (SortKey sortKey : sortKeys) {
+                sortFields.add(sortKey.getField());
+                sortValues.add(readPathValue(row, sortKey.getField(), entityToFind));
+            }
+            return new KeysetCursor(sortFields, sortValues, false);
+        } catch (Exception e) {
+            log.warn("Could not create keyset cursor for sort keys {}", sortKeys, e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads a field or a path through to-one relations ("owner.username") from a loaded row, null when a relation on the path is null.
+     */
+    private Object readPathValue(Object row, String path, Class<? extends AbstractBaseEntity> entityToFind) throws NoSuchFieldException, IllegalAccessException {
+        String[] subObjects = path.split("\\.");
+        Object value = row;
+        StringBuilder subPath = new StringBuilder();
+        for (int i = 0; i < subObjects.length && value != null; i++) {
+            if (i > 0) {
+                subPath.append('.');
+            }
+            subPath.append(subObjects[i]);
+            if (i == 0 && subObjects.length > 1 && subObjects[0].equalsIgnoreCase(entityToFind.getSimpleName())) {
+                continue;
+            }
+            value = resolveField(subPath.toString(), entityToFind).get(Hibernate.unproxy(value));
+        }
+        return value;
+    }
+
+    /**
+     * Orders by the sort keys, sort paths through to-one relations use the LEFT joins of the planner - rows without
+     * the related entity are sorted as NULL instead of being dropped.
+     */
+    private List<Order> createOrders(JoinPlanner joinPlanner, List<SortKey> sortKeys, boolean reversed) {
+        List<Order> orders = new ArrayList<>(sortKeys.size());
+        for (SortKey sortKey : sortKeys) {
+            Path<?> path = joinPlanner.getPath(sortKey.getField());
+            orders.add(sortKey.isAscending() != reversed ? criteriaBuilder.asc(path) : criteriaBuilder.desc(path));
         }
+        return orders;
     }
 
     private void validateOptions(SearchQueryOption options) {
@@ -150,78 +674,97 @@ public class SearchService {
         return options.getEntityToFind();
     }
 
-    private Long getHowManyItemsExist(SearchRequest searchRequest, Class<? extends AbstractBaseEntity> entityToFind) throws NoSuchFieldException {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
-        Root<? extends AbstractBaseEntity> newR = countQuery.from(entityToFind);
-        Predicate predicate = buildMainPredicate(searchRequest, newR, entityToFind);
-        if (predicate != null) {
-            countQuery.select(cb.count(newR)).where(predicate);
-        } else {
-            countQuery.select(cb.count(newR));
+    private void countAllFound(SearchResponse response, SearchQueryPlan plan, SearchRequest searchRequest, SearchQueryOption options,
+                               boolean hasMoreRows, boolean backward) {
+        if (options.isCountQuery()) {
+            response.setAllFound(getHowManyItemsExist(plan, searchRequest));
+            return;
         }
 
-        return entityManager.createQuery(countQuery).getSingleResult();
+        int pageResultSize = response.getResultList().size();
+        long pageOffset = (long) options.getPageSize() * options.getPage();
+        // an empty page after the first one can mean that the page is out of range - total can't be derived from it,
+        // a short page loaded backward with keyset cursor is the first page, not the last one
+        boolean lastPage = !backward && pageResultSize < options.getPageSize() && (pageResultSize > 0 || options.getPage() == 0);
+
+        switch (options.getCountPolicy()) {
+            case NONE -> response.setAllFound(null);
+            case EXACT -> response.setAllFound(getHowManyItemsExist(plan, searchRequest));
+            case DERIVE_FROM_PAGE -> response.setAllFound(lastPage
+                    ? pageOffset + pageResultSize
+                    : getHowManyItemsExist(plan, searchRequest));
+            case ESTIMATED -> {
+                if (hasMoreRows) {
+                    response.setAllFound(pageOffset + pageResultSize + 1);
+                    response.setAllFoundEstimated(true);
+                } else if (lastPage || (!backward && pageResultSize == options.getPageSize())) {
+                    response.setAllFound(pageOffset + pageResultSize);
+                } else {
+                    response.setAllFound(getHowManyItemsExist(plan, searchRequest));
+                }
+            }
+        }
     }
 
-    private boolean isAscendingSortDirection(SortDirection sortDirection) {
-        return sortDirection.equals(SortDirection.ASC);
+    private Long getHowManyItemsExist(SearchQueryPlan plan, SearchRequest searchRequest) {
+        TypedQuery<Long> countQuery = entityManager.createQuery(plan.getCountQuery());
+        bindParameters(countQuery, plan.getCountQueryParameters(), searchRequest);
+        return countQuery.getSingleResult();
     }
 
-    private Predicate buildMainPredicate(SearchRequest searchRequest, Root<? extends AbstractBaseEntity> root, Class<? extends AbstractBaseEntity> entityToFind) throws NoSuchFieldException {
+    private Predicate buildMainPredicate(SearchRequest searchRequest, JoinPlanner joinPlanner, Root<? extends AbstractBaseEntity> root,
+                                         Class<? extends AbstractBaseEntity> entityToFind, List<SearchQueryPlan.Parameter> parameters) throws NoSuchFieldException {
         Map<String, Predicate> groupPredicate = new HashMap<>();
 
-        Group lastProcessed = null;
-        for (Group group : searchRequest.groups) {
-            lastProcessed = group;
+        for (int groupIndex = 0; groupIndex < searchRequest.groups.size(); groupIndex++) {
+            Group group = searchRequest.groups.get(groupIndex);
             List<Predicate> predicatesForGroup = new ArrayList<>();
-            for (String queryId : group.criteriaIds) {
+            for (int criterionIndex = 0; criterionIndex < group.criteriaIds.size(); criterionIndex++) {
+                String queryId = group.criteriaIds.get(criterionIndex);
                 if (groupPredicate.containsKey(queryId)) {
                     predicatesForGroup.add(groupPredicate.get(queryId));
                 } else {
-                    Criterion queryCriterion = searchRequest.criteria.stream().filter(criterion -> criterion.id.equals(queryId)).findFirst().get();
+                    Criterion queryCriterion = searchRequest.getCriterion(queryId);
+                    if (queryCriterion == null) {
+                        throw new NoSuchElementException("Criterion " + queryId + " of group " + group.id + " does not exist!");
+                    }
 
                     if (queryCriterion.attr.startsWith("[")) {
-                        //join
+                        //join, reused for to-one relations, EXISTS subquery for to-many relations
                         String joinFieldName = queryCriterion.attr.substring(1, queryCriterion.attr.indexOf("]"));
-                        Join join = root.join(joinFieldName);
-                        Class javaType = join.getJavaType();
                         String newAttr = queryCriterion.attr.replace("[" + joinFieldName + "].", "");
-                        Criterion newQueryCriterion = new Criterion(UUID.randomUUID().toString(), javaType.getSimpleName(), newAttr, queryCriterion.operator, queryCriterion.value);
-                        Predicate predicate = buildPredicateForNotCollection(join, javaType, newQueryCriterion);
+                        int currentGroupIndex = groupIndex;
+                        int currentCriterionIndex = criterionIndex;
+                        Predicate predicate = joinPlanner.apply(joinFieldName, (join, javaType) -> {
+                            Criterion newQueryCriterion = new Criterion(queryCriterion.id, javaType.getSimpleName(), newAttr, queryCriterion.operator, queryCriterion.value);
+                            return buildPredicateForNotCollection(join, (Class) javaType, newQueryCriterion, parameters, currentGroupIndex, currentCriterionIndex);
+                        });
                         predicatesForGroup.add(predicate);
                     } else {
-                        Predicate predicate = buildPredicateForNotCollection(root, entityToFind, queryCriterion);
+                        Predicate predicate = buildPredicateForNotCollection(root, entityToFind, queryCriterion, parameters, groupIndex, criterionIndex);
                         predicatesForGroup.add(predicate);
                     }
                 }
+            }
 
-                if (group.operator.equals(Operator.AND_OPERATOR)) {
-                    groupPredicate.put(group.id, criteriaBuilder.and(predicatesForGroup.toArray(Predicate[]::new)));
-                } else if (group.operator.equals(Operator.OR_OPERATOR)) {
-                    groupPredicate.put(group.id, criteriaBuilder.or(predicatesForGroup.toArray(Predicate[]::new)));
-                } else {
+            // groups without criteria produce no predicate
+            if (predicatesForGroup.isEmpty()) {
+                continue;
+            }
+            if (Operator.OR_OPERATOR.equals(group.operator)) {
+                groupPredicate.put(group.id, criteriaBuilder.or(predicatesForGroup.toArray(Predicate[]::new)));
+            } else {
+                if (!Operator.AND_OPERATOR.equals(group.operator)) {
                     log.warn("Empty operator, default is AND!");
-                    groupPredicate.put(group.id, criteriaBuilder.and(predicatesForGroup.toArray(Predicate[]::new)));
                 }
+                groupPredicate.put(group.id, criteriaBuilder.and(predicatesForGroup.toArray(Predicate[]::new)));
             }
         }
 
 
         boolean mergedGroupExists = false;
 
-        List<String> mergedGroupsSorted = searchRequest.mergedGroups.keySet().stream().toList()
-                .stream().sorted((a, b) -> {
-                    if (a.equals(FINAL_GROUP_CONSTANT)) return 1;
-                    if (b.equals(FINAL_GROUP_CONSTANT)) return -1;
-
-                    int numA = Integer.parseInt(a.substring(1));
-                    int numB = Integer.parseInt(b.substring(1));
-                    return Integer.compare(numA, numB);
-                })
-                .toList();
-
-        for (String groupId : mergedGroupsSorted) {
+        for (String groupId : sortMergedGroupIds(searchRequest.mergedGroups.keySet())) {
             Map<Operator, List<String>> value = searchRequest.mergedGroups.get(groupId);
             List<Predicate> innerGroupsPredicates = new ArrayList<>();
             List<String> innerGroups;
@@ -287,9 +830,29 @@ public class SearchService {
         return criteriaBuilder.and(groupPredicate.values().toArray(Predicate[]::new));
     }
 
-    private Predicate buildPredicateForNotCollection(From root, Class<? extends AbstractBaseEntity> entityToFind, Criterion queryCriterion) throws NoSuchFieldException {
+    /**
+     * Merged groups are built in order of their numbers (G1, G2, ...), the final group is always built last.
+     */
+    static List<String> sortMergedGroupIds(Collection<String> mergedGroupIds) {
+        return mergedGroupIds.stream()
+                .sorted((a, b) -> {
+                    if (a.equals(FINAL_GROUP_CONSTANT)) return 1;
+                    if (b.equals(FINAL_GROUP_CONSTANT)) return -1;
+
+                    int numA = Integer.parseInt(a.substring(1));
+                    int numB = Integer.parseInt(b.substring(1));
+                    return Integer.compare(numA, numB);
+                })
+                .toList();
+    }
+
+    private Predicate buildPredicateForNotCollection(From root, Class<? extends AbstractBaseEntity> entityToFind, Criterion queryCriterion,
+                                                     List<SearchQueryPlan.Parameter> parameters, int groupIndex, int criterionIndex) throws NoSuchFieldException {
         String field = queryCriterion.type + "." + queryCriterion.attr;
-        SearchCriteria entityCriterion = new SearchCriteria(field, null, getValue(queryCriterion.value, field, entityToFind));
+        Field declaredField = resolveField(field, entityToFind);
+        SearchQueryPlan.TextMatch textMatch = getTextMatch(queryCriterion, declaredField, entityToFind);
+        SearchCriteria entityCriterion = new SearchCriteria(field, null,
+                getValueOrParameter(queryCriterion, declaredField, textMatch, parameters, groupIndex, criterionIndex));
 
         Predicate predicate = null;
         switch (queryCriterion.operator) {
@@ -305,7 +868,15 @@ public class SearchService {
                     predicate = SearchOperationsHelper.greaterThan(root, criteriaBuilder, entityCriterion);
             case LESS_OPERATION ->
                     predicate = SearchOperationsHelper.lessThan(root, criteriaBuilder, entityCriterion);
-            case LIKE_OPERATION -> predicate = SearchOperationsHelper.contains(root, criteriaBuilder, entityCriterion);
+            case LIKE_OPERATION -> {
+                if (textMatch == SearchQueryPlan.TextMatch.FULL_TEXT) {
+                    predicate = SearchOperationsHelper.matches(root, criteriaBuilder, entityCriterion);
+                } else if (textMatch == SearchQueryPlan.TextMatch.TRIGRAM) {
+                    predicate = SearchOperationsHelper.in(root, entityCriterion);
+                } else {
+                    predicate = SearchOperationsHelper.contains(root, criteriaBuilder, entityCriterion);
+                }
+            }
             case NOT_EQUALS_OPERATION ->
                     predicate = SearchOperationsHelper.notEqual(root, criteriaBuilder, entityCriterion);
             case NOT_LIKE_OPERATION ->
@@ -318,71 +889,70 @@ public class SearchService {
         return predicate;
     }
 
-    private Field getDeclaredField(String fieldName, Field field, Class<? extends AbstractBaseEntity> entity) throws NoSuchFieldException {
-        try {
-            return field.getType().getDeclaredField(fieldName);
-        } catch (NoSuchFieldException e) {
-            try {
-                return entity.getSuperclass().getDeclaredField(fieldName);
-            } catch (NoSuchFieldException x) {
-                return entity.getSuperclass().getSuperclass().getDeclaredField(fieldName);
-            }
+    /**
+     * Contains criteria use a full text or a trigram index when the field has one (not contains always uses NOT LIKE),
+     * other criteria get null.
+     * Only parameterized values can be rewritten (null values are inlined). Values without full text terms
+     * (only short words) use LIKE, whether a value has them is part of the plan key.
+     */
+    private SearchQueryPlan.TextMatch getTextMatch(Criterion queryCriterion, Field field, Class<?> entityToFind) {
+        if (!isLikeOperation(queryCriterion.operator)) {
+            return null;
         }
-    }
-
-    private Object getValue(Object value, Field field) {
-        if (value instanceof Collection<?>) {
-            List<Object> result = new ArrayList<>();
-            ((Collection<?>) value).forEach(e -> result.add(getValueForSingularType(e, field)));
-            return result;
+        if (queryCriterion.value == null) {
+            return SearchQueryPlan.TextMatch.LIKE;
         }
-
-        return getValueForSingularType(value, field);
+        if (queryCriterion.operator == SearchOperation.LIKE_OPERATION && fullTextSearch.isIndexed(entityToFind, queryCriterion.attr)
+                && FullTextSearch.hasFullTextTerms(queryCriterion.value)) {
+            return SearchQueryPlan.TextMatch.FULL_TEXT;
+        }
+        if (queryCriterion.operator == SearchOperation.LIKE_OPERATION && trigramIndex.isIndexed(field)) {
+            return SearchQueryPlan.TextMatch.TRIGRAM;
+        }
+        return SearchQueryPlan.TextMatch.LIKE;
     }
 
-    private Object getValueForSingularType(Object value, Field field) {
-        if (field.getType().isEnum()) {
-            value = getEnumValue(value, field);
-        } else {
-            value = getPrimitiveTypeValue(value, field);
+    /**
+     * Values that differ between requests of the same plan key are replaced with parameters, bound on every execution.
+     * Nulls and empty collections are part of the plan key and are inlined as before.
+     */
+    private Object getValueOrParameter(Criterion queryCriterion, Field field, SearchQueryPlan.TextMatch textMatch, List<SearchQueryPlan.Parameter> parameters,
+                                       int groupIndex, int criterionIndex) {
+        Object value = queryCriterion.value;
+        boolean nullOperation = queryCriterion.operator == SearchOperation.IS_NULL_OPERATION
+                || queryCriterion.operator == SearchOperation.IS_NOT_NULL_OPERATION;
+        if (nullOperation || value == null || (value instanceof Collection<?> collection && collection.isEmpty())) {
+            return ValueConverter.forType(field.getType()).convert(value);
         }
 
-        return value;
+        // LIKE patterns are matched as text whatever the attribute type is
+        ValueConverter converter = isLikeOperation(queryCriterion.operator) ? ValueConverter.forType(String.class) : ValueConverter.forType(field.getType());
+        ParameterExpression<?> parameter = criteriaBuilder.parameter(textMatch == SearchQueryPlan.TextMatch.TRIGRAM
+                ? Collection.class
+                : getParameterType(queryCriterion.operator, value, field));
+        parameters.add(new SearchQueryPlan.Parameter(parameter, field, converter, queryCriterion.operator, textMatch, groupIndex, criterionIndex));
+        return parameter;
     }
 
-    private Object getValue(Object value, String field, Class<? extends AbstractBaseEntity> entityToFind) throws NoSuchFieldException {
-        String[] subObjects = field.split("\\.");
-        String fst = subObjects[0];
-        int i = 1;
-        if (fst.equalsIgnoreCase(entityToFind.getSimpleName())) {
-            fst = subObjects[1];
-            i = 2;
+    private Class<?> getParameterType(SearchOperation operation, Object value, Field field) {
+        if (value instanceof Collection<?>) {
+            return Collection.class;
         }
-
-        Field declaredField = entityToFind.getDeclaredField(fst);
-
-        for (; i < subObjects.length; i++) {
-            declaredField = getDeclaredField(subObjects[i], declaredField, entityToFind);
+        if (isLikeOperation(operation)) {
+            return String.class;
         }
-
-        return getValue(value, declaredField);
+        return ClassUtils.resolvePrimitiveIfNecessary(field.getType());
     }
 
-    private void setValueAsArray(SearchCriteria entityCriterion, Field field) {
-        String[] val = String.valueOf(entityCriterion.getValue()).split(",");
-        List<Object> values = new ArrayList<>();
-
-        for (int i = 0; i < val.length; i++) {
-            values.add(getValue(val[i], field));
-        }
-
-        entityCriterion.setValue(values);
+    private static boolean isLikeOperation(SearchOperation operation) {
+        return operation == SearchOperation.LIKE_OPERATION || operation == SearchOperation.NOT_LIKE_OPERATION;
     }
 
-    private Enum getEnumValue(Object value, Field field) {
-        Optional<?> el = Arrays.stream(field.getType().getEnumConstants())
-                .filter(e -> ((Enum) e).name().equals(value))
-                .findFirst();
-        return (Enum) el.orElse(null);
+    private Field resolveField(String field, Class<? extends AbstractBaseEntity> entityToFind) throws NoSuchFieldException {
+        String prefix = entityToFind.getSimpleName() + ".";
+        if (field.regionMatches(true, 0, prefix, 0, prefix.length())) {
+            field = field.substring(prefix.length());
+        }
+        return EntityMetadataRegistry.get(entityToFind).resolvePath(field);
     }
 }
@@ -0,0 +1,23 @@
+package com.bervan.common.search;
+
+import com.bervan.common.search.model.TimeBucket;
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers time_bucket_minute(column) ... time_bucket_year(column) as MySQL date_format truncating the value to the start
+ * of its {@link TimeBucket}. The format is part of the function, so the same SQL expression is selected and grouped by.
+ * Registered through META-INF/services.
+ */
+public class TimeBucketFunctionContributor implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        for (TimeBucket timeBucket : TimeBucket.values()) {
+            functionContributions.getFunctionRegistry().registerPattern(timeBucket.getFunctionName(),
+                    "date_format(?1, '" + timeBucket.getMysqlFormat() + "')",
+                    functionContributions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.STRING));
+        }
+    }
+}
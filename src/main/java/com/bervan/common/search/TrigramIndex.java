@@ -0,0 +1,282 @@
+package com.bervan.common.search;
+
+import com.bervan.common.EntityMetadataRegistry;
+import com.bervan.common.config.BervanViewConfig;
+import com.bervan.common.config.ClassViewAutoConfigColumn;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnit;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.EntityType;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory trigram index of the distinct values of short string columns flagged with trigramIndexed in the autoconfig yml.
+ * Disabled by default (bervan.search.trigram.enabled). A contains criterion on such a column is rewritten to
+ * column IN (values matching the pattern), which can use the column's B-tree index instead of scanning the table
+ * with LIKE '%value%'. Not contains criteria are never rewritten - NOT IN over an incomplete list would keep rows
+ * that should be excluded.
+ * <p>
+ * Results can be stale: values are loaded on startup and refreshed every bervan.search.trigram.refresh-ms, only values
+ * of entities saved through Hibernate in this JVM are added immediately (use {@link #addValue} for rows inserted
+ * without Hibernate). Rows with a value written by another instance, another application or native SQL are not found
+ * until the next refresh. Values of deleted rows may stay in the index until the next refresh - they only add a value
+ * that matches nothing to the IN list. Patterns are matched case-insensitively but, unlike accent-insensitive
+ * MySQL collations, not accent-insensitively.
+ * Columns with more than bervan.search.trigram.max-values distinct values are not indexed, neither are fields inherited
+ * by several flagged entities (the index is kept per field).
+ */
+@Component
+public class TrigramIndex implements PostInsertEventListener, PostUpdateEventListener {
+    /**
+     * Bound instead of an empty list when no value matches - an empty IN list is not valid SQL.
+     */
+    static final String NO_MATCH = "\u0000";
+    private final Logger log = LoggerFactory.getLogger(TrigramIndex.class);
+    private final Map<Field, ValueIndex> indexes = new ConcurrentHashMap<>();
+    private final Map<Field, Class<?>> indexedEntityTypes = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Set<String>> indexedFieldsByType = new ConcurrentHashMap<>();
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private BervanViewConfig bervanViewConfig;
+    @Autowired
+    private SearchQueryPlanCache planCache;
+    @Value("${bervan.search.trigram.enabled:false}")
+    private boolean enabled;
+    @Value("${bervan.search.trigram.max-values:10000}")
+    private int maxValues;
+
+    public boolean isIndexed(Field field) {
+        return enabled && indexes.containsKey(field);
+    }
+
+    /**
+     * Indexed values matching a LIKE pattern (case-insensitive, as with the default MySQL collations),
+     * {@link #NO_MATCH} when none matches.
+     */
+    public List<String> findMatching(Field field, String likePattern) {
+        ValueIndex index = indexes.get(field);
+        if (index == null) {
+            throw new RuntimeException("Trigram index of " + field + " is not available!");
+        }
+        List<String> matching = index.findMatching(likePattern);
+        return matching.isEmpty() ? List.of(NO_MATCH) : matching;
+    }
+
+    public void addValue(Class<?> entityType, String fieldName, String value) {
+        ValueIndex index = indexes.get(EntityMetadataRegistry.get(entityType).getField(fieldName));
+        if (index != null && value != null) {
+            index.add(value);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_INSERT, this);
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_UPDATE, this);
+        refresh();
+        // plans compiled before the indexes were loaded use LIKE
+        planCache.invalidateAll();
+    }
+
+    @Scheduled(fixedDelayString = "${bervan.search.trigram.refresh-ms:600000}", initialDelayString = "${bervan.search.trigram.refresh-ms:600000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        for (EntityType<?> entityType : entityManagerFactory.getMetamodel().getEntities()) {
+            Map<String, ClassViewAutoConfigColumn> columns = bervanViewConfig.get(entityType.getJavaType().getSimpleName());
+            if (columns == null) {
+                continue;
+            }
+            for (ClassViewAutoConfigColumn column : columns.values()) {
+                if (column.isTrigramIndexed()) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> load(entityType.getJavaType(), column.getField()));
+                    } catch (Exception e) {
+                        log.warn("Trigram index of {}.{} could not be loaded!", entityType.getName(), column.getField(), e);
+                    }
+                }
+            }
+        }
+    }
+
+    private void load(Class<?> entityType, String fieldName) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<String> query = criteriaBuilder.createQuery(String.class);
+        Root<?> root = query.from(entityType);
+        query.select(root.<String>get(fieldName)).distinct(true).where(criteriaBuilder.isNotNull(root.get(fieldName)));
+        List<String> values = entityManager.createQuery(query).setMaxResults(maxValues + 1).getResultList();
+
+        Field field = EntityMetadataRegistry.get(entityType).getField(fieldName);
+        Class<?> indexedEntityType = indexedEntityTypes.putIfAbsent(field, entityType);
+        if (indexedEntityType != null && indexedEntityType != entityType) {
+            log.warn("{} is flagged in {} and {}, trigram index is not used.", field, indexedEntityType.getName(), entityType.getName());
+            removeIndex(field);
+            return;
+        }
+        if (values.size() > maxValues) {
+            log.warn("{} has more than {} distinct values, trigram index is not used.", field, maxValues);
+            removeIndex(field);
+            return;
+        }
+
+        ValueIndex index = new ValueIndex();
+        values.forEach(index::add);
+        indexes.put(field, index);
+        indexedFieldsByType.computeIfAbsent(entityType, type -> ConcurrentHashMap.newKeySet()).add(fieldName);
+        log.debug("Trigram index of {} loaded with {} values.", field, values.size());
+    }
+
+    private void removeIndex(Field field) {
+        if (indexes.remove(field) != null) {
+            planCache.invalidateAll();
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        addValues(event.getEntity(), event.getPersister(), event.getState());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        addValues(event.getEntity(), event.getPersister(), event.getState());
+    }
+
+    private void addValues(Object entity, EntityPersister persister, Object[] state) {
+        Set<String> fieldNames = indexedFieldsByType.get(entity.getClass());
+        if (fieldNames == null) {
+            return;
+        }
+        for (String fieldName : fieldNames) {
+            Object value = state[persister.getPropertyIndex(fieldName)];
+            if (value instanceof String stringValue) {
+                addValue(entity.getClass(), fieldName, stringValue);
+            }
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * Distinct values with postings (value positions) per lower case trigram.
+     */
+    static class ValueIndex {
+        private final List<String> values = new ArrayList<>();
+        private final Set<String> knownValues = new HashSet<>();
+        private final Map<String, BitSet> postings = new HashMap<>();
+
+        synchronized void add(String value) {
+            if (!knownValues.add(value)) {
+                return;
+            }
+            int position = values.size();
+            values.add(value);
+            for (String trigram : trigrams(value.toLowerCase(Locale.ROOT))) {
+                postings.computeIfAbsent(trigram, t -> new BitSet()).set(position);
+            }
+        }
+
+        synchronized List<String> findMatching(String likePattern) {
+            Pattern pattern = toRegex(likePattern);
+
+            // candidates contain all trigrams of the literal parts of the pattern, patterns without trigrams check all values
+            BitSet candidates = null;
+            for (String literal : likePattern.toLowerCase(Locale.ROOT).split("[%_]")) {
+                for (String trigram : trigrams(literal)) {
+                    BitSet posting = postings.get(trigram);
+                    if (posting == null) {
+                        return List.of();
+                    }
+                    if (candidates == null) {
+                        candidates = (BitSet) posting.clone();
+                    } else {
+                        candidates.and(posting);
+                    }
+                }
+            }
+
+            List<String> matching = new ArrayList<>();
+            if (candidates == null) {
+                for (String value : values) {
+                    if (pattern.matcher(value).matches()) {
+                        matching.add(value);
+                    }
+                }
+            } else {
+                for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                    if (pattern.matcher(values.get(i)).matches()) {
+                        matching.add(values.get(i));
+                    }
+                }
+            }
+            return matching;
+        }
+
+        /**
+         * LIKE pattern as a case-insensitive regex, also used by {@link SearchRequestMatcher}.
+         */
+        static Pattern toRegex(String likePattern) {
+            StringBuilder regex = new StringBuilder();
+            StringBuilder literal = new StringBuilder();
+            for (char c : likePattern.toCharArray()) {
+                if (c == '%' || c == '_') {
+                    regex.append(Pattern.quote(literal.toString())).append(c == '%' ? ".*" : ".");
+                    literal.setLength(0);
+                } else {
+                    literal.append(c);
+                }
+            }
+            regex.append(Pattern.quote(literal.toString()));
+            return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+        }
+
+        private static List<String> trigrams(String text) {
+            List<String> trigrams = new ArrayList<>();
+            for (int i = 0; i + 3 <= text.length(); i++) {
+                trigrams.add(text.substring(i, i + 3));
+            }
+            return trigrams;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.bervan.common.search;
+
+import com.bervan.common.EntityMetadataRegistry;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Coerces criterion values (strings and numbers coming from filters and the query translator) to the type of the
+ * entity attribute. A converter is resolved once per attribute type and reused, values that already have the target
+ * type are passed through. Collections are converted element by element.
+ * Unparsable values throw an exception, unknown enum constants are converted to null.
+ */
+public final class ValueConverter {
+    private static final Map<Class<?>, ValueConverter> CONVERTERS = new ConcurrentHashMap<>();
+    private final Function<Object, Object> converter;
+
+    private ValueConverter(Function<Object, Object> converter) {
+        this.converter = converter;
+    }
+
+    public static ValueConverter forType(Class<?> type) {
+        return CONVERTERS.computeIfAbsent(type, ValueConverter::create);
+    }
+
+    private static ValueConverter create(Class<?> type) {
+        if (type.isEnum()) {
+            Map<String, Enum<?>> constants = EntityMetadataRegistry.getEnumConstants(type);
+            return new ValueConverter(value -> value instanceof Enum<?> ? value : constants.get(String.valueOf(value)));
+        }
+        if (type == String.class) {
+            return new ValueConverter(String::valueOf);
+        }
+        if (type == Long.class || type == long.class) {
+            return parsing(Long.class, Long::valueOf);
+        }
+        if (type == Integer.class || type == int.class) {
+            return parsing(Integer.class, Integer::valueOf);
+        }
+        if (type == Double.class || type == double.class) {
+            return parsing(Double.class, Double::valueOf);
+        }
+        if (type == Float.class || type == float.class) {
+            return parsing(Float.class, Float::valueOf);
+        }
+        if (type == Short.class || type == short.class) {
+            return parsing(Short.class, Short::valueOf);
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return parsing(Boolean.class, Boolean::valueOf);
+        }
+        if (type == BigDecimal.class) {
+            return parsing(BigDecimal.class, BigDecimal::new);
+        }
+        if (type == BigInteger.class) {
+            return parsing(BigInteger.class, BigInteger::new);
+        }
+        if (type == UUID.class) {
+            return parsing(UUID.class, UUID::fromString);
+        }
+        if (type == LocalDate.class) {
+            return parsing(LocalDate.class, ValueConverter::parseLocalDate);
+        }
+        if (type == LocalDateTime.class) {
+            return parsing(LocalDateTime.class, ValueConverter::parseLocalDateTime);
+        }
+        if (type == LocalTime.class) {
+            return parsing(LocalTime.class, LocalTime::parse);
+        }
+        return new ValueConverter(value -> value);
+    }
+
+    private static ValueConverter parsing(Class<?> type, Function<String, Object> parser) {
+        return new ValueConverter(value -> type.isInstance(value) ? value : parser.apply(String.valueOf(value).trim()));
+    }
+
+    /**
+     * Accepts a date (2024-01-31) or a date with time (2024-01-31T10:00, 2024-01-31 10:00), time is ignored.
+     */
+    private static LocalDate parseLocalDate(String value) {
+        return LocalDate.parse(value.length() > 10 ? value.substring(0, 10) : value);
+    }
+
+    /**
+     * Accepts a date with time separated by 'T' or a space, a date without time is the start of the day.
+     */
+    private static LocalDateTime parseLocalDateTime(String value) {
+        if (value.length() == 10) {
+            return LocalDate.parse(value).atStartOfDay();
+        }
+        return LocalDateTime.parse(value.replace(' ', 'T'));
+    }
+
+    public Object convert(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> result = new ArrayList<>(collection.size());
+            for (Object element : collection) {
+                result.add(element == null ? null : converter.apply(element));
+            }
+            return result;
+        }
+        return converter.apply(value);
+    }
+}
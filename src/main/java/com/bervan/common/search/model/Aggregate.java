@@ -0,0 +1,66 @@
+package com.bervan.common.search.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Aggregate computed for every bucket of {@link com.bervan.common.search.SearchService#aggregate}.
+ * Count counts rows and has no field, min and max work for any comparable field (numbers, dates, strings).
+ */
+public class Aggregate implements Serializable {
+    private final AggregateFunction function;
+    private final String field;
+
+    public Aggregate(AggregateFunction function, String field) {
+        if (function != AggregateFunction.COUNT && field == null) {
+            throw new RuntimeException("Aggregate " + function + " requires a field!");
+        }
+        this.function = function;
+        this.field = function == AggregateFunction.COUNT ? null : field;
+    }
+
+    public static Aggregate count() {
+        return new Aggregate(AggregateFunction.COUNT, null);
+    }
+
+    public static Aggregate sum(String field) {
+        return new Aggregate(AggregateFunction.SUM, field);
+    }
+
+    public static Aggregate min(String field) {
+        return new Aggregate(AggregateFunction.MIN, field);
+    }
+
+    public static Aggregate max(String field) {
+        return new Aggregate(AggregateFunction.MAX, field);
+    }
+
+    public static Aggregate avg(String field) {
+        return new Aggregate(AggregateFunction.AVG, field);
+    }
+
+    public AggregateFunction getFunction() {
+        return function;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Aggregate aggregate)) return false;
+        return function == aggregate.function && Objects.equals(field, aggregate.field);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(function, field);
+    }
+
+    @Override
+    public String toString() {
+        return function.name().toLowerCase() + "(" + (field == null ? "*" : field) + ")";
+    }
+}
@@ -0,0 +1,5 @@
+package com.bervan.common.search.model;
+
+public enum AggregateFunction {
+    COUNT, SUM, MIN, MAX, AVG
+}
@@ -0,0 +1,66 @@
+package com.bervan.common.search.model;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * One row of an aggregation: values of the group by fields, start of the time bucket and the computed aggregates.
+ */
+public class AggregationBucket {
+    private final Map<String, Object> keys;
+    private final LocalDateTime timeBucket;
+    private final Map<Aggregate, Object> values;
+
+    public AggregationBucket(Map<String, Object> keys, LocalDateTime timeBucket, Map<Aggregate, Object> values) {
+        this.keys = Collections.unmodifiableMap(keys);
+        this.timeBucket = timeBucket;
+        this.values = Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Group by field values in the order of the group by fields.
+     */
+    public Map<String, Object> getKeys() {
+        return keys;
+    }
+
+    public Object getKey(String field) {
+        return keys.get(field);
+    }
+
+    /**
+     * Start of the time bucket, null when the aggregation is not bucketed by time.
+     */
+    public LocalDateTime getTimeBucket() {
+        return timeBucket;
+    }
+
+    public Map<Aggregate, Object> getValues() {
+        return values;
+    }
+
+    public Object getValue(Aggregate aggregate) {
+        return values.get(aggregate);
+    }
+
+    /**
+     * Value of a numeric aggregate, null when there was nothing to aggregate (e.g. sum of nulls only).
+     */
+    public Number getNumber(Aggregate aggregate) {
+        return (Number) values.get(aggregate);
+    }
+
+    public long getCount() {
+        Number count = (Number) values.get(Aggregate.count());
+        if (count == null) {
+            throw new RuntimeException("Count is not computed for this aggregation!");
+        }
+        return count.longValue();
+    }
+
+    @Override
+    public String toString() {
+        return "AggregationBucket{keys=" + keys + ", timeBucket=" + timeBucket + ", values=" + values + "}";
+    }
+}
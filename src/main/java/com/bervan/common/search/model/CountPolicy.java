@@ -0,0 +1,24 @@
+package com.bervan.common.search.model;
+
+/**
+ * Decides whether and how {@link SearchResponse#getAllFound()} is computed for a page load.
+ */
+public enum CountPolicy {
+    /**
+     * No total is computed, allFound is null.
+     */
+    NONE,
+    /**
+     * Separate COUNT query is always executed.
+     */
+    EXACT,
+    /**
+     * One extra row is fetched to know if there are more rows. The total is exact when the page is the last one,
+     * otherwise it is a lower bound (loaded rows + 1) and the response is marked as estimated.
+     */
+    ESTIMATED,
+    /**
+     * Total is derived from the page when the page is not full, otherwise COUNT query is executed.
+     */
+    DERIVE_FROM_PAGE
+}
@@ -0,0 +1,84 @@
+package com.bervan.common.search.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Position of a row in a keyset (seek) paginated result - values of all sort fields of the row, the last sort field is always the id.
+ * Returned with every keyset page in {@link SearchResponse} and passed back to load the next / previous page.
+ */
+public class KeysetCursor implements Serializable {
+    private static final String ID_FIELD = "id";
+    private final List<String> sortFields;
+    private final List<Object> sortValues;
+    private final boolean inclusive;
+
+    public KeysetCursor(String sortField, Object sortValue, Object id) {
+        this(sortField, sortValue, id, false);
+    }
+
+    public KeysetCursor(String sortField, Object sortValue, Object id, boolean inclusive) {
+        this(ID_FIELD.equals(sortField) ? List.of(ID_FIELD) : List.of(sortField, ID_FIELD),
+                ID_FIELD.equals(sortField) ? listOf(id) : listOf(sortValue, id), inclusive);
+    }
+
+    /**
+     * @param sortFields all sort fields in order, including the id tiebreaker
+     * @param sortValues values of the sort fields in the row, nulls allowed
+     */
+    public KeysetCursor(List<String> sortFields, List<Object> sortValues, boolean inclusive) {
+        if (sortFields.size() != sortValues.size()) {
+            throw new RuntimeException("Keyset cursor needs one value per sort field!");
+        }
+        this.sortFields = List.copyOf(sortFields);
+        this.sortValues = new ArrayList<>(sortValues);
+        this.inclusive = inclusive;
+    }
+
+    private static List<Object> listOf(Object... values) {
+        List<Object> list = new ArrayList<>(values.length);
+        for (Object value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    /**
+     * Same position, but the row itself is included in the page (used to reload the page from its first row).
+     */
+    public KeysetCursor inclusive() {
+        return new KeysetCursor(sortFields, sortValues, true);
+    }
+
+    public List<String> getSortFields() {
+        return sortFields;
+    }
+
+    public List<Object> getSortValues() {
+        return new ArrayList<>(sortValues);
+    }
+
+    /**
+     * Leading sort field.
+     */
+    public String getSortField() {
+        return sortFields.get(0);
+    }
+
+    /**
+     * Value of the leading sort field.
+     */
+    public Object getSortValue() {
+        return sortValues.get(0);
+    }
+
+    public Object getId() {
+        int idIndex = sortFields.lastIndexOf(ID_FIELD);
+        return idIndex < 0 ? null : sortValues.get(idIndex);
+    }
+
+    public boolean isInclusive() {
+        return inclusive;
+    }
+}
@@ -17,6 +17,9 @@ public class SearchResponse<T extends Persistable> {
     private Integer currentFound;
     private Integer currentPage;
     private Long allFound;
+    private boolean allFoundEstimated;
+    private KeysetCursor previousPageCursor;
+    private KeysetCursor nextPageCursor;
 
     public List<T> getResultList() {
         return resultList;
@@ -49,4 +52,34 @@ public class SearchResponse<T extends Persistable> {
     public void setAllFound(Long allFound) {
         this.allFound = allFound;
     }
+
+    public boolean isAllFoundEstimated() {
+        return allFoundEstimated;
+    }
+
+    public void setAllFoundEstimated(boolean allFoundEstimated) {
+        this.allFoundEstimated = allFoundEstimated;
+    }
+
+    /**
+     * Cursor of the first row of the page, available for keyset paginated searches.
+     */
+    public KeysetCursor getPreviousPageCursor() {
+        return previousPageCursor;
+    }
+
+    public void setPreviousPageCursor(KeysetCursor previousPageCursor) {
+        this.previousPageCursor = previousPageCursor;
+    }
+
+    /**
+     * Cursor of the last row of the page, available for keyset paginated searches.
+     */
+    public KeysetCursor getNextPageCursor() {
+        return nextPageCursor;
+    }
+
+    public void setNextPageCursor(KeysetCursor nextPageCursor) {
+        this.nextPageCursor = nextPageCursor;
+    }
 }
@@ -0,0 +1,54 @@
+package com.bervan.common.search.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One column of a multi-column sort. The field can be a path through to-one relations, e.g. "owner.username".
+ */
+public class SortKey implements Serializable {
+    private final String field;
+    private final SortDirection direction;
+
+    public SortKey(String field, SortDirection direction) {
+        this.field = field;
+        this.direction = direction;
+    }
+
+    public static SortKey asc(String field) {
+        return new SortKey(field, SortDirection.ASC);
+    }
+
+    public static SortKey desc(String field) {
+        return new SortKey(field, SortDirection.DESC);
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public SortDirection getDirection() {
+        return direction;
+    }
+
+    public boolean isAscending() {
+        return direction != SortDirection.DESC;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SortKey sortKey)) return false;
+        return Objects.equals(field, sortKey.field) && direction == sortKey.direction;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(field, direction);
+    }
+
+    @Override
+    public String toString() {
+        return field + " " + direction;
+    }
+}
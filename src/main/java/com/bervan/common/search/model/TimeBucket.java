@@ -0,0 +1,36 @@
+package com.bervan.common.search.model;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Width of time buckets of {@link com.bervan.common.search.SearchService#aggregate}. Values are truncated in the database
+ * with MySQL date_format (see {@link com.bervan.common.search.TimeBucketFunctionContributor}), so bucket start is in the
+ * time zone of the stored values.
+ */
+public enum TimeBucket {
+    MINUTE("%Y-%m-%d %H:%i:00"),
+    HOUR("%Y-%m-%d %H:00:00"),
+    DAY("%Y-%m-%d 00:00:00"),
+    MONTH("%Y-%m-01 00:00:00"),
+    YEAR("%Y-01-01 00:00:00");
+
+    private static final DateTimeFormatter BUCKET_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final String mysqlFormat;
+
+    TimeBucket(String mysqlFormat) {
+        this.mysqlFormat = mysqlFormat;
+    }
+
+    public String getMysqlFormat() {
+        return mysqlFormat;
+    }
+
+    public String getFunctionName() {
+        return "time_bucket_" + name().toLowerCase();
+    }
+
+    public LocalDateTime parse(String bucketStart) {
+        return bucketStart == null ? null : LocalDateTime.parse(bucketStart, BUCKET_FORMAT);
+    }
+}
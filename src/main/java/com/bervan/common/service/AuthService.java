@@ -2,7 +2,7 @@ package com.bervan.common.service;
 
 import com.bervan.common.model.PersistableData;
 import com.bervan.common.user.User;
-import com.bervan.common.user.UserToUserRelation;
+import com.bervan.common.user.UserVisibilityService;
 import com.bervan.logging.JsonLogger;
 import org.springframework.security.core.context.SecurityContextHolder;
 
@@ -10,7 +10,6 @@ import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 public class AuthService {
     private final static JsonLogger log = JsonLogger.getLogger(AuthService.class, "common");
@@ -29,24 +28,25 @@ public class AuthService {
         return Optional.ofNullable(((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal()));
     }
 
+    /**
+     * Owner ids whose data the logged user can see, see {@link UserVisibilityService}.
+     */
+    public static Set<UUID> getVisibleOwnerIds() {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (principal instanceof User user) {
+            return UserVisibilityService.getVisibleOwnerIds(user);
+        }
+        return Set.of(getLoggedUserId());
+    }
+
     public static boolean hasAccess(Collection<? extends PersistableData> elements) {
         if (elements == null || elements.size() == 0) {
             return false;
         }
 
         User loggedUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        if (!loggedUser.isMainAccount()) {
-            Set<User> parents = loggedUser.getChildrenRelations().stream().filter(e -> e.getChild().getId().equals(loggedUser.getId()))
-                    .map(UserToUserRelation::getParent)
-                    .collect(Collectors.toSet());
-
-            for (User parent : parents) {
-                if (elements.stream().anyMatch(e -> e.getId().equals(parent.getId()))) {
-                    return true;
-                }
-            }
-        }
-        return elements.stream().anyMatch(e -> e.getId().equals(loggedUser.getId()));
+        Set<UUID> visibleOwnerIds = UserVisibilityService.getVisibleOwnerIds(loggedUser);
+        return elements.stream().anyMatch(e -> visibleOwnerIds.contains(e.getId()));
     }
 
     public static String getUserRole() {
@@ -1,12 +1,17 @@
 package com.bervan.common.service;
 
 
+import com.bervan.common.EntityMetadata;
+import com.bervan.common.EntityMetadataRegistry;
 import com.bervan.common.model.BervanBaseEntity;
 import com.bervan.common.model.BervanOwnedBaseEntity;
 import com.bervan.common.model.PersistableData;
+import com.bervan.common.search.AggregationOption;
 import com.bervan.common.search.SearchQueryOption;
 import com.bervan.common.search.SearchRequest;
 import com.bervan.common.search.SearchService;
+import com.bervan.common.search.model.AggregationBucket;
+import com.bervan.common.search.model.CountPolicy;
 import com.bervan.common.search.model.SearchResponse;
 import com.bervan.common.search.model.SortDirection;
 import com.bervan.history.model.BaseRepository;
@@ -22,6 +27,7 @@ import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.*;
+import java.util.function.Consumer;
 
 public abstract class BaseService<ID extends Serializable, T extends PersistableData<ID>> {
     protected final SearchService searchService;
@@ -70,6 +76,7 @@ public abstract class BaseService<ID extends Serializable, T extends Persistable
         options.setPage(pageable.getPageNumber());
         options.setPageSize(pageable.getPageSize());
         options.isCountQuery(false);
+        options.setCountPolicy(CountPolicy.NONE);
 
         SearchResponse<T> search = searchService.search(result, options);
         return new HashSet<>(search.getResultList());
@@ -85,6 +92,7 @@ public abstract class BaseService<ID extends Serializable, T extends Persistable
         options.setPage(pageable.getPageNumber());
         options.setPageSize(pageable.getPageSize());
         options.isCountQuery(false);
+        options.setCountPolicy(CountPolicy.NONE);
         SearchResponse<T> search = searchService.search(result, options);
         return search.getResultList();
     }
@@ -98,6 +106,7 @@ public abstract class BaseService<ID extends Serializable, T extends Persistable
         options.setPage(pageable.getPageNumber());
         options.setPageSize(pageable.getPageSize());
         options.isCountQuery(false);
+        options.setCountPolicy(CountPolicy.NONE);
         SearchResponse<T> search = searchService.search(result, options);
         return (search.getResultList());
     }
@@ -110,10 +119,72 @@ public abstract class BaseService<ID extends Serializable, T extends Persistable
         options.setPage(pageable.getPageNumber());
         options.setPageSize(pageable.getPageSize());
         options.isCountQuery(false);
+        options.setCountPolicy(CountPolicy.NONE);
         SearchResponse<T> search = searchService.search(result, options);
         return new HashSet<>(search.getResultList());
     }
 
+    /**
+     * Loads one page together with its total (see {@link SearchQueryOption#setCountPolicy}) in a single call.
+     * Entity type is always set to the type of this service.
+     */
+    public SearchResponse<T> loadPage(SearchRequest request, SearchQueryOption options) {
+        SearchRequest result = buildLoadSearchRequestData(request);
+        result.merge(request);
+        options.setEntityToFind((Class<? extends BervanBaseEntity>) entityType);
+        options.isCountQuery(false);
+        return searchService.search(result, options);
+    }
+
+    /**
+     * Passes every entity matching the request to the action without loading all of them at once,
+     * see {@link SearchService#forEach}. Intended for exports and scheduled scans over whole tables.
+     */
+    public void forEach(SearchRequest request, String sortField, SortDirection sortDirection, Consumer<T> action) {
+        SearchRequest result = buildLoadSearchRequestData(request);
+        result.merge(request);
+        SearchQueryOption options = new SearchQueryOption((Class<? extends BervanBaseEntity>) entityType);
+        options.setSortField(sortField);
+        options.setSortDirection(sortDirection);
+        searchService.forEach(result, options, action);
+    }
+
+    /**
+     * Loads a page directly into records or interfaces (see {@link com.bervan.common.search.DtoProjection}) without
+     * materializing entities, for read-only views that need only a few columns.
+     */
+    public <R> List<R> loadProjection(SearchRequest request, Pageable pageable, String sortField, SortDirection sortDirection, Class<R> projectionType) {
+        SearchRequest result = buildLoadSearchRequestData(request);
+        result.merge(request);
+        SearchQueryOption options = new SearchQueryOption((Class<? extends BervanBaseEntity>) entityType);
+        options.setSortField(sortField);
+        options.setSortDirection(sortDirection);
+        options.setPage(pageable.getPageNumber());
+        options.setPageSize(pageable.getPageSize());
+        return searchService.searchProjection(result, options, projectionType);
+    }
+
+    /**
+     * Groups and aggregates entities in the database (counts per status, histograms) instead of loading them,
+     * see {@link SearchService#aggregate}. Entity type is always set to the type of this service.
+     */
+    public List<AggregationBucket> aggregate(SearchRequest request, AggregationOption aggregation) {
+        SearchRequest result = buildLoadSearchRequestData(request);
+        result.merge(request);
+        aggregation.setEntityToFind((Class<? extends BervanBaseEntity>) entityType);
+        return searchService.aggregate(result, aggregation);
+    }
+
+    /**
+     * Counts entities per value of the facet fields (field -> id of the field's filter group in the request),
+     * see {@link SearchService#countFacets}.
+     */
+    public Map<String, Map<Object, Long>> countFacets(SearchRequest request, Map<String, String> facetGroupsByField) {
+        SearchRequest result = buildLoadSearchRequestData(request);
+        result.merge(request);
+        return searchService.countFacets(result, (Class<? extends BervanBaseEntity>) entityType, facetGroupsByField);
+    }
+
     public Optional<T> loadById(ID id) {
         SearchRequest request = new SearchRequest();
         request.addIdEqualsCriteria("ID_GROUP", entityType, id);
@@ -149,11 +220,12 @@ public abstract class BaseService<ID extends Serializable, T extends Persistable
     private SearchRequest buildLoadSearchRequestData(SearchRequest request) {
         SearchRequest searchRequest = new SearchRequest();
 
-        if (!request.containsGroup(SearchRequest.OWNER_ACCESS_GROUP) && request.isAddOwnerCriterion() && BervanOwnedBaseEntity.class.isAssignableFrom(entityType)) {
+        EntityMetadata metadata = EntityMetadataRegistry.get(entityType);
+        if (!request.containsGroup(SearchRequest.OWNER_ACCESS_GROUP) && request.isAddOwnerCriterion() && metadata.isOwned()) {
             searchRequest.addOwnerAccessCriteria(entityType);
         }
 
-        if (Arrays.stream(entityType.getDeclaredFields()).peek(e -> e.setAccessible(true)).anyMatch(e -> e.getName().equals("deleted"))) {
+        if (metadata.isSoftDeletable()) {
             searchRequest.addDeletedFalseCriteria(entityType);
         }
 
@@ -74,4 +74,11 @@ public class UserToUserRelation extends BervanOwnedBaseEntity<UUID> implements P
     public void setDeleted(Boolean value) {
 
     }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    private void invalidateUserVisibility() {
+        UserVisibilityService.invalidateAllAfterCommit();
+    }
 }
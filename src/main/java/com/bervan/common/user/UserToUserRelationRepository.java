@@ -7,4 +7,6 @@ import java.util.UUID;
 
 public interface UserToUserRelationRepository extends BaseRepository<UserToUserRelation, UUID> {
     List<UserToUserRelation> findAllByParentUsername(String username);
+
+    List<UserToUserRelation> findAllByChildId(UUID childId);
 }
@@ -0,0 +1,111 @@
+package com.bervan.common.user;
+
+import com.bervan.logging.JsonLogger;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Owner ids whose data a user can see: the user itself and, for sub-accounts, the parent accounts.
+ * Sets are loaded once per user and cached until a transaction changing any {@link UserToUserRelation} commits,
+ * at most bervan.user-visibility.ttl-seconds (relations changed outside JPA are visible after the TTL).
+ * A set loaded while an invalidation happened is returned but not cached, so a load racing with a commit can not
+ * cache relations from before the commit.
+ * Static access is used by {@link com.bervan.common.service.AuthService} and search requests, which are not beans.
+ */
+@Service
+public class UserVisibilityService {
+    private static final Map<UUID, CachedOwnerIds> VISIBLE_OWNER_IDS = new ConcurrentHashMap<>();
+    private static final AtomicLong GENERATION = new AtomicLong();
+    private static final String INVALIDATION_RESOURCE = UserVisibilityService.class.getName() + ".invalidation";
+    private static UserToUserRelationRepository relationRepository;
+    private static long ttlMillis = TimeUnit.SECONDS.toMillis(300);
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "common");
+    @Autowired
+    private UserToUserRelationRepository userToUserRelationRepository;
+    @Value("${bervan.user-visibility.ttl-seconds:300}")
+    private long ttlSeconds = 300;
+
+    public static Set<UUID> getVisibleOwnerIds(User user) {
+        if (user.isMainAccount() || relationRepository == null) {
+            return Set.of(user.getId());
+        }
+        CachedOwnerIds cached = VISIBLE_OWNER_IDS.get(user.getId());
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt() < ttlMillis) {
+            return cached.ownerIds();
+        }
+
+        long generation = GENERATION.get();
+        long loadedAt = System.currentTimeMillis();
+        Set<UUID> ownerIds = loadVisibleOwnerIds(user.getId());
+        if (GENERATION.get() == generation) {
+            VISIBLE_OWNER_IDS.put(user.getId(), new CachedOwnerIds(ownerIds, loadedAt));
+            if (GENERATION.get() != generation) {
+                VISIBLE_OWNER_IDS.remove(user.getId());
+            }
+        }
+        return ownerIds;
+    }
+
+    public static void invalidateAll() {
+        GENERATION.incrementAndGet();
+        VISIBLE_OWNER_IDS.clear();
+    }
+
+    /**
+     * Invalidates after the current transaction commits - before that other transactions still read the old
+     * relations and would cache them again. Without a transaction invalidates immediately.
+     */
+    public static void invalidateAllAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateAll();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(INVALIDATION_RESOURCE)) {
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(INVALIDATION_RESOURCE, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateAll();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(INVALIDATION_RESOURCE);
+            }
+        });
+    }
+
+    private static Set<UUID> loadVisibleOwnerIds(UUID userId) {
+        Set<UUID> visibleOwnerIds = new HashSet<>();
+        visibleOwnerIds.add(userId);
+        for (UserToUserRelation relation : relationRepository.findAllByChildId(userId)) {
+            visibleOwnerIds.add(relation.getParent().getId());
+        }
+        return Set.copyOf(visibleOwnerIds);
+    }
+
+    @PostConstruct
+    public void init() {
+        relationRepository = userToUserRelationRepository;
+        ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        log.info("User visibility cache initialized.");
+    }
+
+    private record CachedOwnerIds(Set<UUID> ownerIds, long loadedAt) {
+    }
+}
@@ -11,7 +11,13 @@ import com.bervan.common.component.table.builders.*;
 import com.bervan.common.config.BervanViewConfig;
 import com.bervan.common.config.ClassViewAutoConfigColumn;
 import com.bervan.common.model.PersistableTableData;
+import com.bervan.common.search.SearchQueryOption;
 import com.bervan.common.search.SearchRequest;
+import com.bervan.common.search.SearchService;
+import com.bervan.common.search.model.CountPolicy;
+import com.bervan.common.search.model.KeysetCursor;
+import com.bervan.common.search.model.SearchResponse;
+import com.bervan.common.search.model.SortKey;
 import com.bervan.common.service.BaseService;
 import com.bervan.common.view.table.BervanTableConfig;
 import com.bervan.common.view.table.BervanTableState;
@@ -47,7 +53,6 @@ import com.vaadin.flow.router.AfterNavigationObserver;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
@@ -85,6 +90,11 @@ public abstract class AbstractBervanTableView<ID extends Serializable, T extends
     protected int pageNumber = 0;
     protected int maxPages = 0;
     protected long allFound = 0;
+    protected Long lastLoadedAllFound;
+    protected KeysetCursor previousPageCursor;
+    protected KeysetCursor nextPageCursor;
+    private KeysetCursor pendingKeysetAfter;
+    private KeysetCursor pendingKeysetBefore;
     protected int pageSize = 50;
     protected HorizontalLayout paginationBar;
     protected Grid<T> grid;
@@ -94,6 +104,8 @@ public abstract class AbstractBervanTableView<ID extends Serializable, T extends
     protected SortDirection sortDirection = null;
     protected com.bervan.common.search.model.SortDirection sortDir = com.bervan.common.search.model.SortDirection.ASC; //move this logic to base service
     protected Grid.Column<T> columnSorted = null;
+    protected List<GridSortOrder<T>> gridSortOrders = new ArrayList<>();
+    private Map<String, Map<Object, Long>> loadedFacetCounts;
     protected AbstractFiltersLayout<ID, T> filtersLayout;
     protected BervanTableToolbar<ID, T> tableToolbarActions;
     protected HorizontalLayout topTableActions;
@@ -212,6 +224,9 @@ public abstract class AbstractBervanTableView<ID extends Serializable, T extends
                     showGridLoadingProgress(false);
                     grid.setItems(data);
                     grid.getDataProvider().refreshAll();
+                    if (loadedFacetCounts != null) {
+                        filtersLayout.updateFacetCounts(loadedFacetCounts);
+                    }
                     updateSelectedItemsLabel();
                     hideFloatingToolbar();
                 });
@@ -259,6 +274,9 @@ public abstract class AbstractBervanTableView<ID extends Serializable, T extends
         prevPageButton.addClassName("prev-button");
         prevPageButton.addClickListener(e -> {
             if (pageNumber > 0) {
+                if (isKeysetPaginationSupported()) {
+                    pendingKeysetBefore = previousPageCursor;
+                }
                 pageNumber--;
                 refreshData();
             }
@@ -269,6 +287,9 @@ public abstract class AbstractBervanTableView<ID extends Serializable, T extends
         nextPageButton.addClassName("next-button");
         nextPageButton.addClickListener(event -> {
             if (pageNumber < maxPages - 1) {
+                if (isKeysetPaginationSupported()) {
+                    pendingKeysetAfter = nextPageCursor;
+                }
                 pageNumber++;
                 refreshData();
             }
@@ -406,6 +427,7 @@ public abstract class AbstractBervanTableView<ID extends Serializable, T extends
             } else {
                 pageSize = newSize;
             }
+            // page numbers of the old size do not map to the new one, a keyset position would make the derived total wrong
             pageNumber = 0;
             refreshData();
         });
@@ -656,6 +678,7 @@ public abstract class AbstractBervanTableView<ID extends Serializable, T extends
         grid.setAllRowsVisible(false);
         grid.setPageSize(pageSize);
 
+        grid.setMultiSort(true, Grid.MultiSortPriority.APPEND);
         grid.addSortListener(event -> {
             List<GridSortOrder<T>> sortOrders = event.getSortOrder();
             if (!sortOrders.isEmpty()) {
@@ -664,6 +687,7 @@ public abstract class AbstractBervanTableView<ID extends Serializable, T extends
 
                 this.columnSorted = sortOrder.getSorted();
                 this.sortDirection = sortDirection;
+                this.gridSortOrders = new ArrayList<>(sortOrders);
                 this.refreshData();
             }
         });
@@ -826,13 +850,38 @@ public abstract class AbstractBervanTableView<ID extends Serializable, T extends
             customizePreLoad(request); //must be before pageable to be able to modify it
             //maybe move it before sorting? now its not working
 
-            Pageable pageable = PageRequest.of(pageNumber, pageSize);
-            List<String> columnsToFetch = getFieldsToFetchForTable();
-            List<T> collect = this.service.load(request, pageable, sortField, sortDir, columnsToFetch).stream().filter(e -> e.isDeleted() == null || !e.isDeleted())
+            SearchQueryOption options = new SearchQueryOption();
+            options.setSortField(sortField);
+            options.setSortDirection(sortDir);
+            if (sortDirection != null && gridSortOrders.size() > 1) {
+                options.setSortKeys(getSortKeys());
+            }
+            options.setPage(pageNumber);
+            options.setPageSize(pageSize);
+            options.setColumnsToFetch(getFieldsToFetchForTable());
+            options.setCountPolicy(CountPolicy.DERIVE_FROM_PAGE);
+            if (isKeysetPaginationSupported()) {
+                options.setKeysetPagination(true);
+                options.setKeysetAfter(pendingKeysetAfter);
+                options.setKeysetBefore(pendingKeysetBefore);
+            }
+            pendingKeysetAfter = null;
+            pendingKeysetBefore = null;
+
+            SearchResponse<T> response = this.service.loadPage(request, options);
+            lastLoadedAllFound = response.getAllFound();
+            previousPageCursor = response.getPreviousPageCursor();
+            nextPageCursor = response.getNextPageCursor();
+            if (options.getKeysetBefore() != null && response.getResultList().size() < pageSize) {
+                // reached the beginning while going backward
+                pageNumber = 0;
+            }
+            List<T> collect = response.getResultList().stream().filter(e -> e.isDeleted() == null || !e.isDeleted())
                     .collect(Collectors.toList());
 
             postSearchUpdate(collect);
 
+            loadedFacetCounts = loadFacetCounts(request);
             allFound = countAll(request, collect);
             maxPages = (int) Math.ceil((double) allFound / pageSize);
 
@@ -847,6 +896,60 @@ public abstract class AbstractBervanTableView<ID extends Serializable, T extends
         }
     }
 
+    /**
+     * Sort keys of all sorted grid columns in sort priority order, the search adds id as the last key.
+     */
+    protected List<SortKey> getSortKeys() {
+        List<SortKey> sortKeys = new ArrayList<>();
+        for (GridSortOrder<T> sortOrder : gridSortOrders) {
+            String key = sortOrder.getSorted().getKey();
+            if (key != null) {
+                sortKeys.add(new SortKey(key, sortOrder.getDirection() == SortDirection.ASCENDING
+                        ? com.bervan.common.search.model.SortDirection.ASC
+                        : com.bervan.common.search.model.SortDirection.DESC));
+            }
+        }
+        return sortKeys;
+    }
+
+    /**
+     * Next / previous page buttons use keyset (seek) pagination when the table is sorted by id or an indexed column.
+     * Jumping to a page, changing filters or sorting always loads the page with an offset.
+     */
+    protected boolean isKeysetPaginationSupported() {
+        return pageSize < Integer.MAX_VALUE - 1 && SearchService.isKeysetPaginationSupported(tClass, sortField);
+    }
+
+    /**
+     * Counts per checkbox filter value for the current filters, null when facet counts are disabled.
+     */
+    protected Map<String, Map<Object, Long>> loadFacetCounts(SearchRequest request) {
+        if (!tableConfig.isFacetCountsEnabled()) {
+            return null;
+        }
+        Map<String, String> facetGroups = filtersLayout.getCheckboxFacetGroups();
+        if (facetGroups.isEmpty()) {
+            return null;
+        }
+        try {
+            return this.service.countFacets(request, facetGroups);
+        } catch (Exception e) {
+            log.warn(buildContext(), "Could not load facet counts!", e);
+            return null;
+        }
+    }
+
+    /**
+     * Loads the current page (filters, sorting and paging of this table) into records or interfaces instead of entities.
+     * Intended for read-only grids and summaries that need only a few columns.
+     */
+    protected <R> List<R> loadProjectionPage(Class<R> projectionType) {
+        SearchRequest request = filtersLayout.buildCombinedFilters();
+        customizePreLoad(request);
+        return this.service.loadProjection(request, PageRequest.of(pageNumber, pageSize),
+                sortField == null ? "id" : sortField, sortDir, projectionType);
+    }
+
     protected void postSearchUpdate(List<T> collect) {
 
     }
@@ -997,7 +1100,13 @@ public abstract class AbstractBervanTableView<ID extends Serializable, T extends
         // Override in subclasses to add custom buttons
     }
 
+    /**
+     * By default, the total returned with the last loaded page is used, so no additional count query is executed.
+     */
     protected long countAll(SearchRequest request, Collection<T> collect) {
+        if (lastLoadedAllFound != null) {
+            return lastLoadedAllFound;
+        }
         return this.service.loadCount(request);
     }
 
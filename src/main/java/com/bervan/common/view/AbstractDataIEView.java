@@ -1,12 +1,14 @@
 package com.bervan.common.view;
 
 
+import com.bervan.common.EntityMetadataRegistry;
 import com.bervan.common.MenuNavigationComponent;
 import com.bervan.common.component.BervanButton;
 import com.bervan.common.component.BervanButtonStyle;
 import com.bervan.common.config.BervanViewConfig;
 import com.bervan.common.model.PersistableTableData;
 import com.bervan.common.search.SearchRequest;
+import com.bervan.common.search.model.SortDirection;
 import com.bervan.common.service.BaseService;
 import com.bervan.ieentities.BaseExcelExport;
 import com.bervan.ieentities.BaseJsonExport;
@@ -25,9 +27,14 @@ import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.upload.Upload;
 import com.vaadin.flow.component.upload.receivers.MemoryBuffer;
 import com.vaadin.flow.server.StreamResource;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.ManyToMany;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OneToOne;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.Pageable;
 
 import java.io.*;
 import java.lang.reflect.Field;
@@ -49,6 +56,11 @@ public abstract class AbstractDataIEView<ID extends Serializable, T extends Pers
     protected String pathToFileStorage;
     @Value("${global-tmp-dir.file-storage-relative-path}")
     protected String globalTmpDir;
+    /**
+     * Exporters build the whole file in memory, so the number of exported rows is limited.
+     */
+    @Value("${bervan.export.max-rows:100000}")
+    protected int maxExportRows = 100000;
 
     public AbstractDataIEView(BaseService<ID, T> dataService,
                               MenuNavigationComponent pageLayout, BervanViewConfig bervanViewConfig, Class<T> classToExport) {
@@ -197,6 +209,9 @@ public abstract class AbstractDataIEView<ID extends Serializable, T extends Pers
                     throw new RuntimeException(e);
                 }
             });
+        } catch (TooMuchDataToExportException e) {
+            log.warn(e.getMessage());
+            showErrorNotification(e.getMessage());
         } catch (Exception e) {
             log.error("Could not prepare export data.", e);
             showErrorNotification("Could not prepare export data.");
@@ -226,6 +241,9 @@ public abstract class AbstractDataIEView<ID extends Serializable, T extends Pers
                     throw new RuntimeException(e);
                 }
             });
+        } catch (TooMuchDataToExportException e) {
+            log.warn(e.getMessage());
+            showErrorNotification(e.getMessage());
         } catch (Exception e) {
             log.error("Could not prepare JSON export data.", e);
             showErrorNotification("Could not prepare export data.");
@@ -236,24 +254,42 @@ public abstract class AbstractDataIEView<ID extends Serializable, T extends Pers
 
     protected List<ExcelIEEntity<?>> getDataToExport() {
         List<ExcelIEEntity<?>> result = new ArrayList<>();
+        dataService.forEach(getRequestForDataExport(), "id", SortDirection.ASC, t -> {
+            if (t instanceof ExcelIEEntity<?> excelIEEntity) {
+                if (result.size() >= maxExportRows) {
+                    throw new TooMuchDataToExportException("Too much data to be exported! At most " + maxExportRows + " rows can be exported, narrow the filters.");
+                }
+                initializeAssociations(t);
+                result.add(excelIEEntity);
+            }
+        });
+        return result;
+    }
 
-        try {
-            Set<T> loaded = dataService.load(getRequestForDataExport(), Pageable.ofSize(100000));
-            for (T t : loaded) {
-                if (t instanceof ExcelIEEntity<?>) {
-                    result.add((ExcelIEEntity<?>) t);
+    /**
+     * Exporters read the rows after the scan, when they are detached - associations are loaded while the row is attached.
+     */
+    private static void initializeAssociations(Object entity) {
+        for (Field field : EntityMetadataRegistry.get(entity.getClass()).getFields()) {
+            if (field.isAnnotationPresent(OneToMany.class) || field.isAnnotationPresent(ManyToMany.class)
+                    || field.isAnnotationPresent(ManyToOne.class) || field.isAnnotationPresent(OneToOne.class)
+                    || field.isAnnotationPresent(ElementCollection.class)) {
+                try {
+                    Hibernate.initialize(field.get(entity));
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException("Could not read " + field.getName() + "!", e);
                 }
             }
-        } catch (OutOfMemoryError e) {
-            log.error("To much data to be exported!", e);
-            showErrorNotification("To much data to be exported!");
         }
-
-        return result;
     }
 
     protected SearchRequest getRequestForDataExport() {
         return filtersLayout.buildCombinedFilters();
     }
-}
 
+    protected static class TooMuchDataToExportException extends RuntimeException {
+        public TooMuchDataToExportException(String message) {
+            super(message);
+        }
+    }
+}
@@ -23,6 +23,7 @@ import com.vaadin.flow.component.orderedlayout.FlexComponent;
 import com.vaadin.flow.component.orderedlayout.FlexLayout;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.value.ValueChangeMode;
 import lombok.Getter;
 
 import java.io.Serializable;
@@ -34,6 +35,7 @@ import java.util.function.Consumer;
 import static com.bervan.common.TableClassUtils.buildColumnConfig;
 
 public class AbstractFiltersLayout<ID extends Serializable, T extends PersistableTableData<ID>> extends AbstractPageView {
+    private static final int QUERY_VALIDATION_DELAY_MS = 300;
     protected final Button applyFiltersButton;
     @Getter
     protected final Map<Field, Map<Object, Checkbox>> checkboxFiltersMap = new HashMap<>();
@@ -139,6 +141,10 @@ public class AbstractFiltersLayout<ID extends Serializable, T extends Persistabl
         stringQuerySearch = getFilter();
         stringQuerySearch.setPlaceholder("e.g. name ~ 'test' & status = 'active'");
         stringQuerySearch.addClassName("bervan-query-input");
+        // validated as the user types, the client sends the value only after a pause in typing
+        stringQuerySearch.setValueChangeMode(ValueChangeMode.LAZY);
+        stringQuerySearch.setValueChangeTimeout(QUERY_VALIDATION_DELAY_MS);
+        stringQuerySearch.addValueChangeListener(e -> validateStringQuery(e.getValue()));
 
         Icon questionIcon = VaadinIcon.QUESTION_CIRCLE.create();
         Button helpButton = new Button(questionIcon);
@@ -177,6 +183,20 @@ public class AbstractFiltersLayout<ID extends Serializable, T extends Persistabl
         return searchForm;
     }
 
+    private void validateStringQuery(String query) {
+        SearchRequestQueryTranslator.ValidationResult result = SearchRequestQueryTranslator.validateQuery(query, tClass);
+        stringQuerySearch.setInvalid(!result.valid);
+        stringQuerySearch.setErrorMessage(result.valid ? null : result.message);
+
+        // completions of the condition being typed, otherwise warnings of a valid query
+        List<String> suggestions = query == null || query.isBlank() ? List.of() : SearchRequestQueryTranslator.suggest(query, tClass);
+        if (!suggestions.isEmpty()) {
+            stringQuerySearch.setHelperText(String.join("  ", suggestions));
+        } else {
+            stringQuerySearch.setHelperText(result.valid ? result.message : null);
+        }
+    }
+
     private void showHelpDialog() {
         Dialog helpDialog = new Dialog();
         helpDialog.setWidth("70%");
@@ -519,7 +539,40 @@ public class AbstractFiltersLayout<ID extends Serializable, T extends Persistabl
         SearchOperation operator;
         if (checkbox.getValue()) {
             operator = SearchOperation.EQUALS_OPERATION;
-            request.addCriterion("TABLE_FILTER_CHECKBOXES_FOR_" + field.getName().toUpperCase() + "_GROUP", Operator.OR_OPERATOR, tClass, field.getName(), operator, key);
+            request.addCriterion(getCheckboxGroupId(field), Operator.OR_OPERATOR, tClass, field.getName(), operator, key);
+        }
+    }
+
+    protected String getCheckboxGroupId(Field field) {
+        return "TABLE_FILTER_CHECKBOXES_FOR_" + field.getName().toUpperCase() + "_GROUP";
+    }
+
+    /**
+     * Checkbox filter fields with the ids of their groups in {@link #buildCombinedFilters()}, for facet counts.
+     */
+    public Map<String, String> getCheckboxFacetGroups() {
+        Map<String, String> facetGroups = new HashMap<>();
+        for (Field field : checkboxFiltersMap.keySet()) {
+            facetGroups.put(field.getName(), getCheckboxGroupId(field));
+        }
+        return facetGroups;
+    }
+
+    /**
+     * Shows the number of matching rows next to every checkbox, values without rows show 0.
+     */
+    public void updateFacetCounts(Map<String, Map<Object, Long>> facetCounts) {
+        for (Map.Entry<Field, Map<Object, Checkbox>> fieldCheckboxes : checkboxFiltersMap.entrySet()) {
+            Map<Object, Long> counts = facetCounts.get(fieldCheckboxes.getKey().getName());
+            if (counts == null) {
+                continue;
+            }
+            Map<String, Long> countsByLabel = new HashMap<>();
+            counts.forEach((value, count) -> countsByLabel.put(String.valueOf(value), count));
+            for (Map.Entry<Object, Checkbox> checkbox : fieldCheckboxes.getValue().entrySet()) {
+                String label = String.valueOf(checkbox.getKey());
+                checkbox.getValue().setLabel(label + " (" + countsByLabel.getOrDefault(label, 0L) + ")");
+            }
         }
     }
 
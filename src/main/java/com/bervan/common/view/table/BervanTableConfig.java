@@ -27,6 +27,7 @@ public class BervanTableConfig implements Serializable {
     private final boolean columnToggleEnabled;
     private final boolean keyboardNavigationEnabled;
     private final boolean pageSizeSelectorEnabled;
+    private final boolean facetCountsEnabled;
 
     // Page size options (e.g., 10, 25, 50, 100, -1 for "All")
     private final List<Integer> pageSizeOptions;
@@ -46,6 +47,7 @@ public class BervanTableConfig implements Serializable {
         this.columnToggleEnabled = builder.columnToggleEnabled;
         this.keyboardNavigationEnabled = builder.keyboardNavigationEnabled;
         this.pageSizeSelectorEnabled = builder.pageSizeSelectorEnabled;
+        this.facetCountsEnabled = builder.facetCountsEnabled;
         this.pageSizeOptions = Collections.unmodifiableList(new ArrayList<>(builder.pageSizeOptions));
         this.defaultPageSize = builder.defaultPageSize;
         this.stateKeyPrefix = builder.stateKeyPrefix;
@@ -87,6 +89,13 @@ public class BervanTableConfig implements Serializable {
         return pageSizeSelectorEnabled;
     }
 
+    /**
+     * Counts per checkbox filter value are loaded with every search (one grouped count per checkbox filter).
+     */
+    public boolean isFacetCountsEnabled() {
+        return facetCountsEnabled;
+    }
+
     public List<Integer> getPageSizeOptions() {
         return pageSizeOptions;
     }
@@ -124,6 +133,7 @@ public class BervanTableConfig implements Serializable {
         private boolean columnToggleEnabled = false;
         private boolean keyboardNavigationEnabled = false;
         private boolean pageSizeSelectorEnabled = false;
+        private boolean facetCountsEnabled = false;
         private List<Integer> pageSizeOptions = Arrays.asList(10, 25, 50, 100, -1);
         private int defaultPageSize = 50;
         private String stateKeyPrefix = "bervan-table";
@@ -154,6 +164,11 @@ public class BervanTableConfig implements Serializable {
             return this;
         }
 
+        public Builder facetCountsEnabled(boolean enabled) {
+            this.facetCountsEnabled = enabled;
+            return this;
+        }
+
         public Builder pageSizeOptions(List<Integer> options) {
             this.pageSizeOptions = new ArrayList<>(options);
             return this;
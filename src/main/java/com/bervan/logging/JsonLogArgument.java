@@ -0,0 +1,21 @@
+package com.bervan.logging;
+
+import net.logstash.logback.marker.ObjectAppendingMarker;
+
+/**
+ * Key-value structured argument added by {@link JsonLogger} (moduleName, process context). Written to the JSON log
+ * like StructuredArguments.keyValue, but keeps the raw value so {@link QueueAppender} can read it without
+ * parsing the encoded log.
+ */
+class JsonLogArgument extends ObjectAppendingMarker {
+    private final Object argumentValue;
+
+    JsonLogArgument(String fieldName, Object argumentValue) {
+        super(fieldName, argumentValue);
+        this.argumentValue = argumentValue;
+    }
+
+    Object getArgumentValue() {
+        return argumentValue;
+    }
+}
@@ -2,7 +2,6 @@ package com.bervan.logging;
 
 import ch.qos.logback.classic.Logger;
 import net.logstash.logback.argument.StructuredArgument;
-import net.logstash.logback.argument.StructuredArguments;
 import org.slf4j.LoggerFactory;
 import org.slf4j.event.Level;
 
@@ -99,7 +98,7 @@ public class JsonLogger {
     }
 
     private Object[] createParamsWithJson(Map.Entry<String, Map<String, Object>> json, Object[] params) {
-        StructuredArgument structuredArgument = StructuredArguments.keyValue(json.getKey(), json.getValue());
+        StructuredArgument structuredArgument = new JsonLogArgument(json.getKey(), json.getValue());
         if (params == null || params.length == 0) {
             return new Object[]{structuredArgument};
         }
@@ -134,11 +133,11 @@ public class JsonLogger {
         }
 
         if (params == null || params.length == 0) {
-            params = new Object[]{StructuredArguments.keyValue("moduleName", moduleName)};
+            params = new Object[]{new JsonLogArgument("moduleName", moduleName)};
         } else {
             Object[] newParams = new Object[params.length + 1];
             System.arraycopy(params, 0, newParams, 0, params.length);
-            newParams[params.length] = StructuredArguments.keyValue("moduleName", moduleName);
+            newParams[params.length] = new JsonLogArgument("moduleName", moduleName);
             params = newParams;
         }
 
@@ -0,0 +1,280 @@
+package com.bervan.logging;
+
+import com.bervan.common.EntityMetadata;
+import com.bervan.common.EntityMetadataRegistry;
+import com.bervan.common.search.SearchRequestMatcher;
+import com.bervan.common.search.model.SortKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Archive tier of logs leaving the hot retention window. Disabled by default (bervan.logging.archive.enabled).
+ * <p>
+ * Every night, before {@link LogService#cleanOldLogs} removes them, complete days reaching the retention cutoff
+ * (bervan.logging.retention-days) are rolled into {@link LogSegment} files: {dir}/{day}/{applicationName}-{n}.seg,
+ * at most bervan.logging.archive.segment-rows rows per segment. A day is searchable once all its segments are written
+ * (marked by a .complete file), a day left incomplete by a failure stays in the table and is rewritten by the next run.
+ * Segments older than bervan.logging.archive.retention-days are deleted.
+ */
+@Component
+@Profile("!test && !it")
+public class LogArchive {
+    private static final String COMPLETE_MARKER = ".complete";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "common");
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    @Value("${bervan.logging.archive.enabled:false}")
+    private boolean enabled;
+    @Value("${bervan.logging.archive.dir:./logs-archive}")
+    private String dir;
+    @Value("${bervan.logging.archive.segment-rows:50000}")
+    private int segmentRows = 50000;
+    @Value("${bervan.logging.archive.retention-days:365}")
+    private int archiveRetentionDays = 365;
+    @Value("${bervan.logging.retention-days:2}")
+    private int retentionDays = 2;
+
+    public LogArchive(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        // MySQL Connector/J streams rows one by one only with this fetch size, otherwise a whole day is loaded at once
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Scheduled(cron = "0 30 1 * * *")
+    public void archiveOldLogs() {
+        if (!enabled) {
+            return;
+        }
+
+        LocalDate lastDay = LocalDate.now().minusDays(retentionDays);
+        for (LocalDate day : getDaysToArchive(lastDay.plusDays(1).atStartOfDay())) {
+            if (!isArchived(day)) {
+                try {
+                    archiveDay(day);
+                } catch (Exception e) {
+                    log.error("Could not archive logs of " + day + "!", e);
+                    return;
+                }
+            }
+        }
+        deleteExpiredDays();
+    }
+
+    /**
+     * First day with logs before the cutoff that is not archived yet (its archiving failed), null when there is none.
+     * {@link LogService#cleanOldLogs} keeps such days in the table until a later run archives them.
+     */
+    public LocalDate getFirstUnarchivedDay(LocalDateTime cutoff) {
+        for (LocalDate day : getDaysToArchive(cutoff)) {
+            if (!isArchived(day)) {
+                return day;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Archived logs with timestamp in [from, to) matching the request, the first maxResults in the order of the sort
+     * keys (timestamp descending without sort keys). A null to means no upper bound. When the first sort key is
+     * timestamp, days are read in that order and reading stops once maxResults logs are selected, otherwise every
+     * archived day in the range is read.
+     */
+    public List<LogEntity> search(LocalDateTime from, LocalDateTime to, SearchRequestMatcher<LogEntity> matcher,
+                                  List<SortKey> sortKeys, int maxResults) {
+        Comparator<LogEntity> order = createComparator(sortKeys);
+        boolean timestampOrder = sortKeys.isEmpty() || "timestamp".equals(sortKeys.get(0).getField());
+        boolean ascending = !sortKeys.isEmpty() && timestampOrder && sortKeys.get(0).isAscending();
+        Set<String> filterAttributes = matcher.getAttributes();
+
+        // worst selected log on top
+        PriorityQueue<LogEntity> selected = new PriorityQueue<>(order.reversed());
+        LocalDate firstDay = from.toLocalDate();
+        LocalDate lastDay = to == null ? LocalDate.now() : to.toLocalDate();
+        for (LocalDate day = ascending ? firstDay : lastDay;
+             !day.isBefore(firstDay) && !day.isAfter(lastDay) && !(timestampOrder && selected.size() >= maxResults);
+             day = ascending ? day.plusDays(1) : day.minusDays(1)) {
+            if (!isArchived(day)) {
+                continue;
+            }
+            for (Path segment : listSegments(day)) {
+                try {
+                    for (LogEntity archived : LogSegment.read(segment, from, to, matcher, filterAttributes)) {
+                        selected.add(archived);
+                        if (selected.size() > maxResults) {
+                            selected.poll();
+                        }
+                    }
+                } catch (IOException e) {
+                    log.error("Could not read log segment " + segment + "!", e);
+                }
+            }
+        }
+
+        List<LogEntity> result = new ArrayList<>(selected);
+        result.sort(order);
+        return result;
+    }
+
+    /**
+     * Orders logs by the sort keys, nulls last, by timestamp descending without sort keys.
+     */
+    static Comparator<LogEntity> createComparator(List<SortKey> sortKeys) {
+        EntityMetadata metadata = EntityMetadataRegistry.get(LogEntity.class);
+        Comparator<LogEntity> comparator = null;
+        for (SortKey sortKey : sortKeys) {
+            Comparator<Comparable<Object>> values = sortKey.isAscending()
+                    ? Comparator.nullsLast(Comparator.<Comparable<Object>>naturalOrder())
+                    : Comparator.nullsLast(Comparator.<Comparable<Object>>reverseOrder());
+            Comparator<LogEntity> keyComparator = Comparator.comparing(log -> readSortValue(metadata, log, sortKey.getField()), values);
+            comparator = comparator == null ? keyComparator : comparator.thenComparing(keyComparator);
+        }
+        return comparator == null ? Comparator.comparing(LogEntity::getTimestamp).reversed() : comparator;
+    }
+
+    private static Comparable<Object> readSortValue(EntityMetadata metadata, LogEntity log, String field) {
+        try {
+            return (Comparable<Object>) metadata.getValue(log, field);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Could not sort logs by " + field + "!", e);
+        }
+    }
+
+    private void archiveDay(LocalDate day) throws IOException {
+        Path dayDir = getDayDir(day);
+        if (Files.exists(dayDir)) {
+            // left by a failed run
+            for (Path file : listFiles(dayDir)) {
+                Files.delete(file);
+            }
+        }
+        Files.createDirectories(dayDir);
+
+        Map<String, Integer> segmentCounters = new HashMap<>();
+        List<LogEntity> segment = new ArrayList<>();
+        String[] segmentApplication = new String[1];
+        long[] archived = new long[1];
+        RowCallbackHandler handler = rs -> {
+            String applicationName = Objects.requireNonNullElse(rs.getString("application_name"), "N-A");
+            if (!applicationName.equals(segmentApplication[0]) || segment.size() >= segmentRows) {
+                writeSegment(dayDir, segmentApplication[0], segment, segmentCounters);
+                segmentApplication[0] = applicationName;
+            }
+            LogEntity entity = new LogEntity();
+            entity.setApplicationName(applicationName);
+            entity.setLineNumber(rs.getInt("line_number"));
+            entity.setLogLevel(rs.getString("log_level"));
+            entity.setClassName(rs.getString("class_name"));
+            entity.setMethodName(rs.getString("method_name"));
+            entity.setProcessName(rs.getString("process_name"));
+            entity.setModuleName(rs.getString("module_name"));
+            entity.setPackageName(rs.getString("package_name"));
+            entity.setRoute(rs.getString("route"));
+            entity.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
+            entity.setMessage(rs.getString("message"));
+            entity.setJson(rs.getString("json"));
+            segment.add(entity);
+            archived[0]++;
+        };
+        streamingJdbcTemplate.query("""
+                SELECT application_name, line_number, log_level, class_name, method_name, process_name, module_name,
+                       package_name, route, timestamp, message, json
+                FROM logs WHERE timestamp >= ? AND timestamp < ? ORDER BY application_name
+                """, handler, Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+        writeSegment(dayDir, segmentApplication[0], segment, segmentCounters);
+
+        Files.createFile(dayDir.resolve(COMPLETE_MARKER));
+        log.info("Archived " + archived[0] + " logs of " + day + " into " + segmentCounters.values().stream().mapToInt(Integer::intValue).sum() + " segments.");
+    }
+
+    private void writeSegment(Path dayDir, String applicationName, List<LogEntity> logs, Map<String, Integer> segmentCounters) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        int number = segmentCounters.merge(applicationName, 1, Integer::sum);
+        Path file = dayDir.resolve(applicationName.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + number + SEGMENT_SUFFIX);
+        Path tmp = dayDir.resolve(file.getFileName() + ".tmp");
+        try {
+            LogSegment.write(tmp, applicationName, logs);
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write log segment " + file + "!", e);
+        }
+        logs.clear();
+    }
+
+    private void deleteExpiredDays() {
+        LocalDate cutoff = LocalDate.now().minusDays(archiveRetentionDays);
+        Path root = Path.of(dir);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        for (Path dayDir : listFiles(root)) {
+            try {
+                if (LocalDate.parse(dayDir.getFileName().toString()).isBefore(cutoff)) {
+                    for (Path file : listFiles(dayDir)) {
+                        Files.delete(file);
+                    }
+                    Files.delete(dayDir);
+                }
+            } catch (Exception e) {
+                log.warn("Could not delete archived logs in " + dayDir, e);
+            }
+        }
+    }
+
+    /**
+     * Days with logs before the end, ascending. Only days present in the table are listed (old backfilled timestamps
+     * don't make a run walk every calendar day since), days past the archive retention are skipped - their segments
+     * would be deleted right away.
+     */
+    private List<LocalDate> getDaysToArchive(LocalDateTime end) {
+        LocalDate firstDay = LocalDate.now().minusDays(archiveRetentionDays);
+        return jdbcTemplate.queryForList("SELECT DISTINCT DATE(timestamp) FROM logs WHERE timestamp >= ? AND timestamp < ? ORDER BY 1",
+                        Date.class, Timestamp.valueOf(firstDay.atStartOfDay()), Timestamp.valueOf(end)).stream()
+                .map(Date::toLocalDate)
+                .toList();
+    }
+
+    private boolean isArchived(LocalDate day) {
+        return Files.exists(getDayDir(day).resolve(COMPLETE_MARKER));
+    }
+
+    private List<Path> listSegments(LocalDate day) {
+        return listFiles(getDayDir(day)).stream()
+                .filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                .toList();
+    }
+
+    private static List<Path> listFiles(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not list " + directory + "!", e);
+        }
+    }
+
+    private Path getDayDir(LocalDate day) {
+        return Path.of(dir, day.toString());
+    }
+}
@@ -0,0 +1,164 @@
+package com.bervan.logging;
+
+import com.bervan.common.search.SearchResultCache;
+import com.bervan.common.search.TrigramIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inserts logs with multi-row INSERT statements, bypassing the repository: logs have no history and no owners, and
+ * the IDENTITY id would make Hibernate insert them one by one. Indexes and caches normally updated on Hibernate
+ * inserts ({@link TrigramIndex}, {@link SearchResultCache}) are updated here.
+ * <p>
+ * A statement carries at most bervan.logging.insert.rows-per-statement rows and about
+ * bervan.logging.insert.max-statement-bytes bytes of values (keep it below the server's max_allowed_packet),
+ * a single larger row is sent alone. When a statement fails its rows are inserted one by one, so one bad row
+ * does not drop the others. Rows failing on their own are dropped and counted, the count and the last error are
+ * logged at most once a minute - a log per failure could feed itself through the queue.
+ */
+@Component
+@Profile("!test && !it && !debug")
+public class LogBatchWriter {
+    private static final String INSERT = "INSERT INTO logs (application_name, line_number, log_level, class_name, method_name, "
+            + "process_name, module_name, package_name, route, timestamp, message, json) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int COLUMNS = 12;
+    /**
+     * Estimated size of the fixed width values and the row syntax.
+     */
+    private static final int ROW_OVERHEAD_BYTES = 64;
+    private static final long DROPPED_ROWS_REPORT_INTERVAL_MS = 60_000;
+
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "common");
+    private final AtomicLong droppedRows = new AtomicLong();
+    private long reportedDroppedRows;
+    private long lastDroppedRowsReport;
+    private volatile String lastDropReason;
+    private final JdbcTemplate jdbcTemplate;
+    private final TrigramIndex trigramIndex;
+    @Value("${bervan.logging.insert.rows-per-statement:100}")
+    private int rowsPerStatement = 100;
+    @Value("${bervan.logging.insert.max-statement-bytes:4194304}")
+    private long maxStatementBytes = 4 * 1024 * 1024;
+
+    public LogBatchWriter(JdbcTemplate jdbcTemplate, TrigramIndex trigramIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.trigramIndex = trigramIndex;
+    }
+
+    public void insert(List<LogEntity> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+
+        int from = 0;
+        while (from < logs.size()) {
+            int to = from;
+            long statementBytes = 0;
+            while (to < logs.size() && to - from < rowsPerStatement) {
+                long rowBytes = estimateBytes(logs.get(to));
+                if (to > from && statementBytes + rowBytes > maxStatementBytes) {
+                    break;
+                }
+                statementBytes += rowBytes;
+                to++;
+            }
+            insertChunk(logs.subList(from, to));
+            from = to;
+        }
+        reportDroppedRows();
+
+        Set<String> classNames = new HashSet<>();
+        Set<String> methodNames = new HashSet<>();
+        for (LogEntity log : logs) {
+            classNames.add(log.getClassName());
+            methodNames.add(log.getMethodName());
+        }
+        classNames.forEach(value -> trigramIndex.addValue(LogEntity.class, "className", value));
+        methodNames.forEach(value -> trigramIndex.addValue(LogEntity.class, "methodName", value));
+        SearchResultCache.entityChanged(LogEntity.class);
+    }
+
+    public long getDroppedRows() {
+        return droppedRows.get();
+    }
+
+    private void insertChunk(List<LogEntity> chunk) {
+        try {
+            jdbcTemplate.update(buildInsert(chunk.size()), toParameters(chunk));
+        } catch (Exception e) {
+            if (chunk.size() == 1) {
+                lastDropReason = e.getMessage();
+                droppedRows.incrementAndGet();
+                return;
+            }
+            for (LogEntity row : chunk) {
+                insertChunk(List.of(row));
+            }
+        }
+    }
+
+    private synchronized void reportDroppedRows() {
+        long dropped = droppedRows.get();
+        long now = System.currentTimeMillis();
+        if (dropped > reportedDroppedRows && now - lastDroppedRowsReport >= DROPPED_ROWS_REPORT_INTERVAL_MS) {
+            lastDroppedRowsReport = now;
+            log.warn((dropped - reportedDroppedRows) + " logs could not be stored and were dropped (total: " + dropped + "), last error: " + lastDropReason);
+            reportedDroppedRows = dropped;
+        }
+    }
+
+    /**
+     * Upper bound of the UTF-8 size of the row values, computed from string lengths without encoding them.
+     */
+    private static long estimateBytes(LogEntity log) {
+        long chars = length(log.getApplicationName()) + length(log.getLogLevel()) + length(log.getClassName())
+                + length(log.getMethodName()) + length(log.getProcessName()) + length(log.getModuleName())
+                + length(log.getPackageName()) + length(log.getRoute()) + length(log.getMessage()) + length(log.getJson());
+        return ROW_OVERHEAD_BYTES + chars * 3;
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static String buildInsert(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT.length() + rows * (ROW.length() + 2));
+        sql.append(INSERT);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW);
+        }
+        return sql.toString();
+    }
+
+    private static Object[] toParameters(List<LogEntity> logs) {
+        List<Object> parameters = new ArrayList<>(logs.size() * COLUMNS);
+        for (LogEntity log : logs) {
+            parameters.add(log.getApplicationName());
+            parameters.add(log.getLineNumber());
+            parameters.add(log.getLogLevel());
+            parameters.add(log.getClassName());
+            parameters.add(log.getMethodName());
+            parameters.add(log.getProcessName());
+            parameters.add(log.getModuleName());
+            parameters.add(log.getPackageName());
+            parameters.add(log.getRoute());
+            parameters.add(log.getTimestamp() == null ? null : Timestamp.valueOf(log.getTimestamp()));
+            parameters.add(log.getMessage());
+            parameters.add(log.getJson());
+        }
+        return parameters.toArray();
+    }
+}
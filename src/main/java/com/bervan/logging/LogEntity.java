@@ -1,6 +1,7 @@
 package com.bervan.logging;
 
 import com.bervan.common.model.BervanBaseEntity;
+import com.bervan.common.model.FullTextSearchable;
 import com.bervan.common.model.PersistableTableData;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Size;
@@ -46,6 +47,7 @@ public class LogEntity extends BervanBaseEntity<Long> implements PersistableTabl
 
     @Size(max = MAX_LOG_MESSAGE_LENGTH)
     @Column(columnDefinition = "MEDIUMTEXT")
+    @FullTextSearchable
     private String message;
 
     @Lob
@@ -1,47 +1,81 @@
 package com.bervan.logging;
 
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
 import static com.bervan.logging.LogEntity.MAX_LOG_MESSAGE_LENGTH;
 
+/**
+ * Consumes LOGS_QUEUE in batches (bervan.logging.listener.batch-size messages or what arrived within
+ * bervan.logging.listener.receive-timeout-ms) and stores every batch with {@link LogBatchWriter}.
+ * Consumer count is set by bervan.logging.listener.concurrency ("min-max" allowed).
+ */
 @Service
 @Profile("!test && !it && !debug")
 public class LogListener {
 
-    private final LogRepository logRepository;
+    private final LogBatchWriter logBatchWriter;
+    private final MessageConverter messageConverter;
 
-    public LogListener(LogRepository logRepository) {
-        this.logRepository = logRepository;
+    public LogListener(LogBatchWriter logBatchWriter, Jackson2JsonMessageConverter messageConverter) {
+        this.logBatchWriter = logBatchWriter;
+        this.messageConverter = messageConverter;
     }
 
-    @RabbitListener(queues = "LOGS_QUEUE", concurrency = "1")
-    public void receiveLog(LogMessage logMessage) {
-        try {
-            LogEntity entity = new LogEntity();
-            entity.setApplicationName(logMessage.getApplicationName());
-            entity.setLogLevel(logMessage.getLogLevel());
-            entity.setMessage(logMessage.getMessage());
-            entity.setTimestamp(logMessage.getTimestamp());
-            entity.setClassName(logMessage.getClassName());
-            entity.setLineNumber(logMessage.getLineNumber());
-            entity.setMethodName(logMessage.getMethodName());
-            entity.setPackageName(logMessage.getPackageName());
-            entity.setProcessName(getProcessName(logMessage));
-            entity.setModuleName(getModuleName(logMessage));
-            entity.setRoute(getRoute(logMessage));
-            entity.setJson(logMessage.getJson());
-
-            if (entity.getMessage().length() > MAX_LOG_MESSAGE_LENGTH) {
-                entity.setMessage(truncateLogMessage(entity.getMessage()));
+    @RabbitListener(queues = "LOGS_QUEUE", containerFactory = "logsListenerContainerFactory",
+            concurrency = "${bervan.logging.listener.concurrency:1-4}")
+    public void receiveLogs(List<Message> messages) {
+        List<LogEntity> entities = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            try {
+                Object payload = messageConverter.fromMessage(message);
+                if (payload instanceof LogMessageBatch batch) {
+                    for (LogMessage logMessage : batch.getMessages()) {
+                        entities.add(toEntity(logMessage));
+                    }
+                } else if (payload instanceof LogMessage logMessage) {
+                    entities.add(toEntity(logMessage));
+                }
+            } catch (Throwable e) {
+                //don't do anything, we don't want to have infinite loop of logs
             }
+        }
 
-            logRepository.save(entity);
+        try {
+            logBatchWriter.insert(entities);
         } catch (Throwable e) {
             //don't do anything, we don't want to have infinite loop of logs
         }
+    }
 
+    private LogEntity toEntity(LogMessage logMessage) {
+        LogEntity entity = new LogEntity();
+        entity.setApplicationName(logMessage.getApplicationName());
+        entity.setLogLevel(logMessage.getLogLevel());
+        entity.setMessage(logMessage.getMessage());
+        // timestamp is NOT NULL once the table is partitioned
+        entity.setTimestamp(logMessage.getTimestamp() == null ? LocalDateTime.now() : logMessage.getTimestamp());
+        entity.setClassName(logMessage.getClassName());
+        entity.setLineNumber(logMessage.getLineNumber() == null ? 0 : logMessage.getLineNumber());
+        entity.setMethodName(logMessage.getMethodName());
+        entity.setPackageName(logMessage.getPackageName());
+        entity.setProcessName(getProcessName(logMessage));
+        entity.setModuleName(getModuleName(logMessage));
+        entity.setRoute(getRoute(logMessage));
+        entity.setJson(logMessage.getJson());
+
+        if (entity.getMessage() != null && entity.getMessage().length() > MAX_LOG_MESSAGE_LENGTH) {
+            entity.setMessage(truncateLogMessage(entity.getMessage()));
+        }
+        return entity;
     }
 
     private String getModuleName(LogMessage logMessage) {
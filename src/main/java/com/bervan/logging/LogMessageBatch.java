@@ -0,0 +1,20 @@
+package com.bervan.logging;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Log messages published by {@link QueueAppender} as one AMQP message.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogMessageBatch implements Serializable {
+    private List<LogMessage> messages;
+}
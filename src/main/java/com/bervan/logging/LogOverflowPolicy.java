@@ -0,0 +1,19 @@
+package com.bervan.logging;
+
+/**
+ * What {@link QueueAppender} does with events when its ring buffer is full (bervan.logging.async.overflow-policy).
+ */
+public enum LogOverflowPolicy {
+    /**
+     * DEBUG and TRACE events are dropped when the buffer is 3/4 full, other events when it is full.
+     */
+    DROP_DEBUG_FIRST,
+    /**
+     * The logging thread waits for free space. Events logged by the publisher thread itself are dropped instead.
+     */
+    BLOCK,
+    /**
+     * Events are written to a file and published once the buffer is drained.
+     */
+    SPILL_TO_DISK
+}
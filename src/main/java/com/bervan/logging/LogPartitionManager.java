@@ -0,0 +1,191 @@
+package com.bervan.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the logs table partitioned by day (RANGE on TO_DAYS(timestamp)), so retention drops whole partitions
+ * instead of deleting millions of rows. Disabled by default (bervan.logging.partitioning.enabled).
+ * <p>
+ * On startup a not partitioned table is converted once: the primary key becomes (id, timestamp) - MySQL requires
+ * the partition column in every unique key - and foreign keys referencing logs (legacy logs_owners) are dropped,
+ * partitioned tables can not have them. The conversion rebuilds the table, run it in a maintenance window on large tables.
+ * A table with a FULLTEXT index (bervan.search.fulltext.enabled) can not be partitioned and is left as it is.
+ * <p>
+ * Partitions are named pYYYYMMDD, bervan.logging.partitioning.days-ahead future days are created in advance by splitting
+ * the empty catch-all partition p_future. Searches need nothing special - criteria on timestamp are plain
+ * column comparisons, which MySQL uses to prune partitions.
+ */
+@Component
+@Profile("!test && !it")
+public class LogPartitionManager {
+    private static final String TABLE = "logs";
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "common");
+    private final JdbcTemplate jdbcTemplate;
+    @Value("${bervan.logging.partitioning.enabled:false}")
+    private boolean enabled;
+    @Value("${bervan.logging.partitioning.days-ahead:7}")
+    private int daysAhead = 7;
+    private volatile boolean partitioned;
+
+    public LogPartitionManager(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!loadPartitionBounds().isEmpty()) {
+                partitioned = true;
+            } else if (hasFullTextIndex()) {
+                log.warn("Logs table has a FULLTEXT index and can not be partitioned, old logs are deleted row by row.");
+                return;
+            } else {
+                convertToPartitionedTable();
+                partitioned = true;
+            }
+            createFuturePartitions();
+        } catch (Exception e) {
+            log.error("Could not partition logs table, old logs are deleted row by row!", e);
+        }
+    }
+
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    @Scheduled(cron = "0 0 1 * * *")
+    public void createFuturePartitions() {
+        if (!partitioned) {
+            return;
+        }
+
+        List<LocalDate> bounds = loadPartitionBounds();
+        LocalDate lastBound = bounds.isEmpty() ? LocalDate.now() : bounds.get(bounds.size() - 1);
+        LocalDate until = LocalDate.now().plusDays(daysAhead + 1);
+        if (!lastBound.isBefore(until)) {
+            return;
+        }
+
+        List<String> partitions = new ArrayList<>();
+        for (LocalDate upperBound = lastBound.plusDays(1); !upperBound.isAfter(until); upperBound = upperBound.plusDays(1)) {
+            partitions.add(partitionDefinition(upperBound));
+        }
+        partitions.add(FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + FUTURE_PARTITION
+                + " INTO (" + String.join(", ", partitions) + ")");
+        log.info("Created " + (partitions.size() - 1) + " log partitions until " + until);
+    }
+
+    /**
+     * Drops partitions holding only logs older than the cutoff date, returns the number of dropped partitions.
+     */
+    public int dropPartitionsBefore(LocalDate cutoff) {
+        List<String> oldPartitions = new ArrayList<>();
+        for (Map<String, Object> partition : loadPartitions()) {
+            LocalDate upperBound = toUpperBound(partition.get("PARTITION_DESCRIPTION"));
+            if (upperBound != null && !upperBound.isAfter(cutoff)) {
+                oldPartitions.add((String) partition.get("PARTITION_NAME"));
+            }
+        }
+        if (!oldPartitions.isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + String.join(", ", oldPartitions));
+            log.info("Dropped log partitions: " + oldPartitions);
+        }
+        return oldPartitions.size();
+    }
+
+    private void convertToPartitionedTable() {
+        log.info("Converting logs table to daily partitions.");
+        List<String> foreignKeys = jdbcTemplate.queryForList("""
+                select table_name, constraint_name from information_schema.referential_constraints
+                where constraint_schema = database() and referenced_table_name = ?
+                """, TABLE).stream()
+                .map(row -> "ALTER TABLE " + row.get("TABLE_NAME") + " DROP FOREIGN KEY " + row.get("CONSTRAINT_NAME"))
+                .toList();
+        foreignKeys.forEach(jdbcTemplate::execute);
+
+        String timestampType = jdbcTemplate.queryForObject("""
+                select column_type from information_schema.columns
+                where table_schema = database() and table_name = ? and column_name = 'timestamp'
+                """, String.class, TABLE);
+        jdbcTemplate.update("UPDATE " + TABLE + " SET timestamp = '1970-01-01' WHERE timestamp IS NULL");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " MODIFY timestamp " + timestampType + " NOT NULL, "
+                + "DROP PRIMARY KEY, ADD PRIMARY KEY (id, timestamp)");
+
+        LocalDate today = LocalDate.now();
+        List<String> partitions = new ArrayList<>();
+        // everything older than today goes to one partition, dropped by the first retention run after it expires
+        partitions.add("p_old VALUES LESS THAN (TO_DAYS('" + today + "'))");
+        for (LocalDate upperBound = today.plusDays(1); !upperBound.isAfter(today.plusDays(daysAhead + 1)); upperBound = upperBound.plusDays(1)) {
+            partitions.add(partitionDefinition(upperBound));
+        }
+        partitions.add(FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " PARTITION BY RANGE (TO_DAYS(timestamp)) ("
+                + String.join(", ", partitions) + ")");
+    }
+
+    /**
+     * Partition holding logs of the day before the upper bound.
+     */
+    private static String partitionDefinition(LocalDate upperBound) {
+        return upperBound.minusDays(1).format(PARTITION_NAME) + " VALUES LESS THAN (TO_DAYS('" + upperBound + "'))";
+    }
+
+    private boolean hasFullTextIndex() {
+        Number count = jdbcTemplate.queryForObject("""
+                select count(*) from information_schema.statistics
+                where table_schema = database() and table_name = ? and index_type = 'FULLTEXT'
+                """, Number.class, TABLE);
+        return count != null && count.longValue() > 0;
+    }
+
+    private List<Map<String, Object>> loadPartitions() {
+        return jdbcTemplate.queryForList("""
+                select partition_name, partition_description from information_schema.partitions
+                where table_schema = database() and table_name = ? and partition_name is not null
+                order by partition_ordinal_position
+                """, TABLE);
+    }
+
+    /**
+     * Upper bounds (exclusive) of the day partitions in order, without the catch-all partition.
+     */
+    private List<LocalDate> loadPartitionBounds() {
+        List<LocalDate> bounds = new ArrayList<>();
+        for (Map<String, Object> partition : loadPartitions()) {
+            LocalDate upperBound = toUpperBound(partition.get("PARTITION_DESCRIPTION"));
+            if (upperBound != null) {
+                bounds.add(upperBound);
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Partition description is the TO_DAYS value of the bound, or MAXVALUE.
+     */
+    private static LocalDate toUpperBound(Object description) {
+        if (description == null || "MAXVALUE".equalsIgnoreCase(description.toString())) {
+            return null;
+        }
+        // TO_DAYS('0000-01-01') is 1, TO_DAYS('1970-01-01') is 719528
+        return LocalDate.ofEpochDay(Long.parseLong(description.toString().trim()) - 719528);
+    }
+}
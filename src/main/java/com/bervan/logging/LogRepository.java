@@ -27,6 +27,9 @@ public interface LogRepository extends BaseRepository<LogEntity, Long> {
     @Query("DELETE FROM LogEntity l WHERE l.timestamp < :cutoff")
     void deleteOldLogs(@Param("cutoff") LocalDateTime cutoff);
 
+    @Query("SELECT MIN(l.timestamp) FROM LogEntity l")
+    LocalDateTime findOldestTimestamp();
+
     @Query("SELECT DISTINCT applicationName FROM LogEntity")
     Set<String> findAllApplicationNames();
 
@@ -0,0 +1,97 @@
+package com.bervan.logging;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer / single-consumer ring buffer. Every slot has a sequence number telling whether it is
+ * free for the producer of a given position or filled for the consumer, producers claim positions with a CAS on the
+ * producer index, so offering never blocks and never allocates.
+ * Only one thread may poll / drain.
+ */
+class LogRingBuffer<E> {
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private volatile long consumerIndex;
+
+    LogRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new RuntimeException("Ring buffer capacity must be at least 2!");
+        }
+        this.capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds the element, false when the buffer is full.
+     */
+    boolean offer(E element) {
+        long index = producerIndex.get();
+        while (true) {
+            int slot = (int) (index & mask);
+            long available = sequences.get(slot) - index;
+            if (available == 0) {
+                if (producerIndex.compareAndSet(index, index + 1)) {
+                    slots.lazySet(slot, element);
+                    // publishes the element to the consumer
+                    sequences.set(slot, index + 1);
+                    return true;
+                }
+                index = producerIndex.get();
+            } else if (available < 0) {
+                // the slot still holds an element from the previous round
+                return false;
+            } else {
+                index = producerIndex.get();
+            }
+        }
+    }
+
+    E poll() {
+        long index = consumerIndex;
+        int slot = (int) (index & mask);
+        if (sequences.get(slot) != index + 1) {
+            return null;
+        }
+        E element = slots.get(slot);
+        slots.lazySet(slot, null);
+        // frees the slot for the producer of the next round
+        sequences.set(slot, index + capacity);
+        consumerIndex = index + 1;
+        return element;
+    }
+
+    /**
+     * Moves up to maxElements elements to the target, returns the number of moved elements.
+     */
+    int drainTo(List<? super E> target, int maxElements) {
+        int drained = 0;
+        E element;
+        while (drained < maxElements && (element = poll()) != null) {
+            target.add(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Approximate number of elements, exact when no element is being added or removed.
+     */
+    int size() {
+        return (int) Math.max(0, Math.min(capacity, producerIndex.get() - consumerIndex));
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,259 @@
+package com.bervan.logging;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Columnar file of archived logs of one application (see {@link LogArchive}).
+ * <p>
+ * Header (not compressed): magic, application name, row count and the zone map - min and max timestamp, so segments
+ * outside the searched time range are skipped without reading the body.
+ * Body (gzip): rows sorted by timestamp stored column by column - delta encoded timestamps, line numbers,
+ * dictionary encoded short columns (logLevel, className, moduleName, processName, packageName, methodName, route)
+ * and length prefixed message and json. Numbers are written as variable length integers.
+ */
+final class LogSegment {
+    private static final int MAGIC = 0x424C5347;
+    private static final int VERSION = 1;
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final List<DictionaryColumn> DICTIONARY_COLUMNS = List.of(
+            new DictionaryColumn(LogEntity::getLogLevel, LogEntity::setLogLevel),
+            new DictionaryColumn(LogEntity::getClassName, LogEntity::setClassName),
+            new DictionaryColumn(LogEntity::getModuleName, LogEntity::setModuleName),
+            new DictionaryColumn(LogEntity::getProcessName, LogEntity::setProcessName),
+            new DictionaryColumn(LogEntity::getPackageName, LogEntity::setPackageName),
+            new DictionaryColumn(LogEntity::getMethodName, LogEntity::setMethodName),
+            new DictionaryColumn(LogEntity::getRoute, LogEntity::setRoute)
+    );
+
+    private LogSegment() {
+
+    }
+
+    /**
+     * Writes logs of one application, the list is sorted by timestamp in place.
+     */
+    static void write(Path file, String applicationName, List<LogEntity> logs) throws IOException {
+        logs.sort(Comparator.comparing(LogEntity::getTimestamp));
+        try (DataOutputStream header = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            header.writeInt(MAGIC);
+            header.writeByte(VERSION);
+            header.writeUTF(applicationName);
+            header.writeInt(logs.size());
+            header.writeLong(toMillis(logs.get(0).getTimestamp()));
+            header.writeLong(toMillis(logs.get(logs.size() - 1).getTimestamp()));
+            header.flush();
+
+            DataOutputStream body = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(header, 64 * 1024)));
+            long previous = 0;
+            for (LogEntity log : logs) {
+                long millis = toMillis(log.getTimestamp());
+                writeVarLong(body, millis - previous);
+                previous = millis;
+            }
+            for (LogEntity log : logs) {
+                writeVarLong(body, log.getLineNumber());
+            }
+            for (DictionaryColumn column : DICTIONARY_COLUMNS) {
+                writeDictionaryColumn(body, logs, column.getter());
+            }
+            for (LogEntity log : logs) {
+                writeString(body, log.getMessage());
+            }
+            for (LogEntity log : logs) {
+                writeString(body, log.getJson());
+            }
+            body.close();
+        }
+    }
+
+    /**
+     * Reads logs with timestamp in [from, to) (null for unbounded) matching the filter, the body is not read
+     * when the zone map is outside the range.
+     */
+    static List<LogEntity> read(Path file, LocalDateTime from, LocalDateTime to, Predicate<LogEntity> filter) throws IOException {
+        return read(file, from, to, filter, null);
+    }
+
+    /**
+     * Like {@link #read(Path, LocalDateTime, LocalDateTime, Predicate)}, filterAttributes are the attributes the filter
+     * reads (null when unknown). Message and json are decoded only for rows in the range, and when the filter does not
+     * read them, only for matching rows - the filter runs before the message column is read.
+     */
+    static List<LogEntity> read(Path file, LocalDateTime from, LocalDateTime to, Predicate<LogEntity> filter,
+                                Set<String> filterAttributes) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException("Not a log segment: " + file);
+            }
+            String applicationName = in.readUTF();
+            int rows = in.readInt();
+            long minTimestamp = in.readLong();
+            long maxTimestamp = in.readLong();
+            if ((from != null && maxTimestamp < toMillis(from)) || (to != null && minTimestamp >= toMillis(to))) {
+                return List.of();
+            }
+
+            DataInputStream body = new DataInputStream(new BufferedInputStream(new GZIPInputStream(in, 64 * 1024)));
+            List<LogEntity> logs = new ArrayList<>(rows);
+            long timestamp = 0;
+            for (int i = 0; i < rows; i++) {
+                timestamp += readVarLong(body);
+                LogEntity log = new LogEntity();
+                log.setApplicationName(applicationName);
+                log.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZONE));
+                logs.add(log);
+            }
+            for (LogEntity log : logs) {
+                log.setLineNumber((int) readVarLong(body));
+            }
+            for (DictionaryColumn column : DICTIONARY_COLUMNS) {
+                readDictionaryColumn(body, logs, column.setter());
+            }
+
+            boolean[] selected = new boolean[rows];
+            for (int i = 0; i < rows; i++) {
+                LogEntity log = logs.get(i);
+                selected[i] = (from == null || !log.getTimestamp().isBefore(from)) && (to == null || log.getTimestamp().isBefore(to));
+            }
+            boolean filterReadsJson = filterAttributes == null || filterAttributes.contains("json");
+            boolean filterReadsMessage = filterReadsJson || filterAttributes.contains("message");
+            if (!filterReadsMessage) {
+                applyFilter(logs, selected, filter);
+            }
+            for (int i = 0; i < rows; i++) {
+                if (selected[i]) {
+                    logs.get(i).setMessage(readString(body));
+                } else {
+                    skipString(body);
+                }
+            }
+            if (filterReadsMessage && !filterReadsJson) {
+                applyFilter(logs, selected, filter);
+            }
+            for (int i = 0; i < rows; i++) {
+                if (selected[i]) {
+                    logs.get(i).setJson(readString(body));
+                } else {
+                    skipString(body);
+                }
+            }
+            if (filterReadsJson) {
+                applyFilter(logs, selected, filter);
+            }
+
+            List<LogEntity> result = new ArrayList<>();
+            for (int i = 0; i < rows; i++) {
+                if (selected[i]) {
+                    result.add(logs.get(i));
+                }
+            }
+            return result;
+        }
+    }
+
+    private static void applyFilter(List<LogEntity> logs, boolean[] selected, Predicate<LogEntity> filter) {
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = selected[i] && filter.test(logs.get(i));
+        }
+    }
+
+    private static void writeDictionaryColumn(DataOutputStream out, List<LogEntity> logs, Function<LogEntity, String> getter) throws IOException {
+        // code 0 is null
+        Map<String, Integer> codes = new LinkedHashMap<>();
+        int[] rowCodes = new int[logs.size()];
+        for (int i = 0; i < logs.size(); i++) {
+            String value = getter.apply(logs.get(i));
+            rowCodes[i] = value == null ? 0 : codes.computeIfAbsent(value, v -> codes.size() + 1);
+        }
+        writeVarLong(out, codes.size());
+        for (String value : codes.keySet()) {
+            writeString(out, value);
+        }
+        for (int code : rowCodes) {
+            writeVarLong(out, code);
+        }
+    }
+
+    private static void readDictionaryColumn(DataInputStream in, List<LogEntity> logs, BiConsumer<LogEntity, String> setter) throws IOException {
+        String[] dictionary = new String[(int) readVarLong(in) + 1];
+        for (int i = 1; i < dictionary.length; i++) {
+            dictionary[i] = readString(in);
+        }
+        for (LogEntity log : logs) {
+            setter.accept(log, dictionary[(int) readVarLong(in)]);
+        }
+    }
+
+    /**
+     * Length + 1 followed by UTF-8 bytes, 0 is null.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = (int) readVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(DataInputStream in) throws IOException {
+        int length = (int) readVarLong(in);
+        if (length > 0) {
+            in.skipNBytes(length - 1);
+        }
+    }
+
+    /**
+     * Zig-zag encoded, 7 bits per byte.
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.writeByte((int) zigZag);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long zigZag = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    private static long toMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    private record DictionaryColumn(Function<LogEntity, String> getter, BiConsumer<LogEntity, String> setter) {
+    }
+}
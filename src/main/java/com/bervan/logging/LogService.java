@@ -1,28 +1,126 @@
 package com.bervan.logging;
 
+import com.bervan.common.search.SearchQueryOption;
+import com.bervan.common.search.SearchRequest;
+import com.bervan.common.search.SearchRequestMatcher;
 import com.bervan.common.search.SearchService;
+import com.bervan.common.search.model.SearchResponse;
+import com.bervan.common.search.model.SortKey;
 import com.bervan.common.service.BaseService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
 @Service
 public class LogService extends BaseService<Long, LogEntity> {
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "common");
+    @Autowired(required = false)
+    private LogPartitionManager logPartitionManager;
+    @Autowired(required = false)
+    private LogArchive logArchive;
+    @Value("${bervan.logging.retention-days:2}")
+    private int retentionDays = 2;
+    @Value("${bervan.logging.archive.max-results:10000}")
+    private int archiveMaxResults = 10000;
 
     public LogService(LogRepository logRepository, SearchService searchService) {
         super(logRepository, searchService);
     }
 
+    /**
+     * Removes logs older than bervan.logging.retention-days, by dropping day partitions when the table is partitioned
+     * (see {@link LogPartitionManager}), with deletes otherwise. With the archive enabled, logs from the first day
+     * that is not archived yet are kept.
+     */
     @Scheduled(cron = "0 0 2 * * *")
     public void cleanOldLogs() {
-        LocalDateTime cutoff = LocalDateTime.now().minusDays(2); //change to 7 once server be better
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        if (logArchive != null && logArchive.isEnabled()) {
+            LocalDate unarchivedDay = logArchive.getFirstUnarchivedDay(cutoff);
+            if (unarchivedDay != null && unarchivedDay.atStartOfDay().isBefore(cutoff)) {
+                log.warn("Logs of " + unarchivedDay + " are not archived, keeping them in the table.");
+                cutoff = unarchivedDay.atStartOfDay();
+            }
+        }
+
+        if (logPartitionManager != null && logPartitionManager.isPartitioned()) {
+            logPartitionManager.dropPartitionsBefore(cutoff.toLocalDate());
+            return;
+        }
+
         ((LogRepository) repository).deleteOwnersByOldLogs(cutoff);
         ((LogRepository) repository).deleteOldLogs(cutoff);
     }
 
+    /**
+     * When the request's timestamp range starts before the oldest log in the table and the archive is enabled,
+     * matching archived logs (see {@link LogArchive}) are merged with the table rows in the requested order.
+     * Such pages are loaded by page number, keyset cursors are ignored, and at most bervan.logging.archive.max-results
+     * archived logs are included (the total is estimated then).
+     */
+    @Override
+    public SearchResponse<LogEntity> loadPage(SearchRequest request, SearchQueryOption options) {
+        List<LogEntity> archived = searchArchive(request, options.getSortKeys(), (options.getPage() + 1) * options.getPageSize());
+        if (archived == null) {
+            return super.loadPage(request, options);
+        }
+
+        SearchQueryOption hotOptions = new SearchQueryOption(LogEntity.class);
+        hotOptions.setSortKeys(options.getSortKeys());
+        hotOptions.setColumnsToFetch(options.getColumnsToFetch());
+        hotOptions.setCountPolicy(options.getCountPolicy());
+        hotOptions.setPage(0);
+        hotOptions.setPageSize((options.getPage() + 1) * options.getPageSize());
+        SearchResponse<LogEntity> hot = super.loadPage(request, hotOptions);
+
+        List<LogEntity> merged = new ArrayList<>(hot.getResultList());
+        merged.addAll(archived);
+        merged.sort(LogArchive.createComparator(options.getSortKeys()));
+        int from = Math.min(merged.size(), options.getPage() * options.getPageSize());
+        List<LogEntity> page = new ArrayList<>(merged.subList(from, Math.min(merged.size(), from + options.getPageSize())));
+
+        Long allFound = hot.getAllFound() == null ? null : hot.getAllFound() + archived.size();
+        SearchResponse<LogEntity> response = new SearchResponse<>(page, page.size(), options.getPage(), allFound);
+        response.setAllFoundEstimated(hot.isAllFoundEstimated() || archived.size() >= archiveMaxResults);
+        return response;
+    }
+
+    @Override
+    public long loadCount(SearchRequest request) {
+        List<LogEntity> archived = searchArchive(request, List.of(), archiveMaxResults);
+        return super.loadCount(request) + (archived == null ? 0 : archived.size());
+    }
+
+    /**
+     * Archived logs matching the request, the first maxResults in sort key order, null when the request does not reach
+     * past the oldest log in the table.
+     */
+    private List<LogEntity> searchArchive(SearchRequest request, List<SortKey> sortKeys, int maxResults) {
+        if (logArchive == null || !logArchive.isEnabled()) {
+            return null;
+        }
+
+        SearchRequestMatcher<LogEntity> matcher;
+        try {
+            matcher = SearchRequestMatcher.of(request, LogEntity.class);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        LocalDateTime from = (LocalDateTime) matcher.getLowerBound("timestamp");
+        LocalDateTime oldestHot = ((LogRepository) repository).findOldestTimestamp();
+        if (from == null || (oldestHot != null && !from.isBefore(oldestHot))) {
+            return null;
+        }
+        return logArchive.search(from, oldestHot, matcher, sortKeys, Math.min(maxResults, archiveMaxResults));
+    }
+
     public Set<String> loadAppsName() {
         return ((LogRepository) repository).findAllApplicationNames();
     }
@@ -1,9 +1,11 @@
 package com.bervan.logging;
 
 
+import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
 import ch.qos.logback.core.ConsoleAppender;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.LoggerFactory;
@@ -13,23 +15,62 @@ import org.springframework.context.SmartLifecycle;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Publishes log events to LOGS_QUEUE.
+ * <p>
+ * In async mode (bervan.logging.async.enabled, default) logging threads only put the event into a lock-free ring buffer,
+ * a publisher thread encodes the events and publishes them in batches as one {@link LogMessageBatch}. When the buffer
+ * is full the {@link LogOverflowPolicy} decides what happens, dropped events are counted and reported in the next batch.
+ * Without async mode every event is encoded and published on the logging thread, one message per event.
+ */
 @Component
 @Profile("!test && !it && !debug")
 public class QueueAppender extends ConsoleAppender<ILoggingEvent> implements SmartLifecycle {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
     private final JsonLogger log = JsonLogger.getLogger(getClass(), "common");
 
     private final RabbitTemplate rabbitTemplate;
     private final String applicationName;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final Object spillLock = new Object();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong droppedDebugEvents = new AtomicLong();
+    private final AtomicLong spilledEvents = new AtomicLong();
+    @Value("${bervan.logging.async.enabled:true}")
+    private boolean async = true;
+    @Value("${bervan.logging.async.buffer-size:8192}")
+    private int bufferSize = 8192;
+    @Value("${bervan.logging.async.batch-size:200}")
+    private int batchSize = 200;
+    @Value("${bervan.logging.async.overflow-policy:DROP_DEBUG_FIRST}")
+    private LogOverflowPolicy overflowPolicy = LogOverflowPolicy.DROP_DEBUG_FIRST;
+    @Value("${bervan.logging.async.spill-dir:${java.io.tmpdir}/bervan-logs-spill}")
+    private String spillDir;
+    private LogRingBuffer<ILoggingEvent> buffer;
+    private volatile Thread publisherThread;
+    private volatile boolean publishing;
+    private long reportedDroppedEvents;
 
     public QueueAppender(RabbitTemplate rabbitTemplate, @Value("${spring.application.name}") String applicationName) {
         this.rabbitTemplate = rabbitTemplate;
@@ -37,8 +78,14 @@ public class QueueAppender extends ConsoleAppender<ILoggingEvent> implements Sma
     }
 
     @Override
-    public synchronized void doAppend(ILoggingEvent eventObject) {
-        append(eventObject);
+    public void doAppend(ILoggingEvent eventObject) {
+        if (async) {
+            append(eventObject);
+        } else {
+            synchronized (this) {
+                append(eventObject);
+            }
+        }
     }
 
     @Override
@@ -47,89 +94,244 @@ public class QueueAppender extends ConsoleAppender<ILoggingEvent> implements Sma
             return;
         }
 
-        byte[] encodedMessage = encoder.encode(eventObject);
-        String decodedString = new String(encodedMessage, StandardCharsets.UTF_8);
+        if (async && buffer != null) {
+            enqueue(eventObject);
+            return;
+        }
 
-        Map<String, Object> json;
-        String processName = null;
-        String className = null;
-        String method = null;
-        String route = null;
-        String packageName = null;
-        String moduleName = null;
-        Integer line = null;
         try {
-            json = objectMapper.readValue(decodedString, Map.class);
-            packageName = getVal(json, "package");
-            className = getVal(json, "class");
-            moduleName = getVal(json, "moduleName");
-            method = getVal(json, "method");
-            String lineStr = getVal(json, "line");
-            if (lineStr != null) {
-                line = Integer.parseInt(lineStr);
+            rabbitTemplate.convertAndSend("LOGS_DIRECT_EXCHANGE", "LOGS_ROUTING_KEY", toLogMessage(eventObject));
+        } catch (Exception e) {
+            addError("Failed to send log to RabbitMQ", e);
+        }
+    }
+
+    private void enqueue(ILoggingEvent event) {
+        // caller data, MDC and the formatted message must be captured on the logging thread
+        event.prepareForDeferredProcessing();
+        event.getCallerData();
+
+        if (Thread.currentThread() == publisherThread) {
+            // logs of the AMQP client used by the publisher, waiting for itself would never end
+            if (!buffer.offer(event)) {
+                droppedEvents.incrementAndGet();
             }
-            Object ctx = json.getOrDefault(BaseProcessContext.CTX, null);
-            if (ctx instanceof Map) {
-                processName = (String) ((Map) ctx).getOrDefault(BaseProcessContext.PROCESS_NAME, null);
-                route = (String) ((Map) ctx).getOrDefault(BaseProcessContext.ROUTE, null);
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case DROP_DEBUG_FIRST -> {
+                if (event.getLevel().toInt() <= Level.DEBUG_INT && buffer.size() >= buffer.capacity() / 4 * 3) {
+                    droppedDebugEvents.incrementAndGet();
+                } else if (!buffer.offer(event)) {
+                    droppedEvents.incrementAndGet();
+                }
             }
-        } catch (Exception ignored) {
-        }
-
-        LogMessage logMessage;
-        if (eventObject.getCallerData() != null && eventObject.getCallerData().length > 0) {
-            logMessage = new LogMessage(
-                    applicationName,
-                    eventObject.getLevel().toString(),
-                    decodedString,
-                    LocalDateTime.ofInstant(
-                            Instant.ofEpochMilli(eventObject.getTimeStamp()),
-                            ZoneId.systemDefault()
-                    ),
-                    packageName,
-                    className,
-                    method,
-                    moduleName,
-                    processName,
-                    route,
-                    line,
-                    decodedString
-            );
-        } else {
-            logMessage = new LogMessage(
-                    applicationName,
-                    eventObject.getLevel().toString(),
-                    decodedString,
-                    LocalDateTime.ofInstant(
-                            Instant.ofEpochMilli(eventObject.getTimeStamp()),
-                            ZoneId.systemDefault()
-                    ),
-                    null,
-                    null,
-                    null,
-                    moduleName,
-                    processName,
-                    route,
-                    null,
-                    decodedString
-            );
+            case BLOCK -> {
+                while (!buffer.offer(event)) {
+                    if (!publishing) {
+                        droppedEvents.incrementAndGet();
+                        return;
+                    }
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                }
+            }
+            case SPILL_TO_DISK -> {
+                if (!buffer.offer(event)) {
+                    spill(event);
+                }
+            }
+        }
+    }
+
+    private void publishLoop() {
+        List<ILoggingEvent> events = new ArrayList<>(batchSize);
+        while (publishing || buffer.size() > 0) {
+            buffer.drainTo(events, batchSize);
+            if (events.isEmpty()) {
+                replaySpilledEvents();
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            List<LogMessage> messages = new ArrayList<>(events.size() + 1);
+            for (ILoggingEvent event : events) {
+                try {
+                    messages.add(toLogMessage(event));
+                } catch (Exception e) {
+                    droppedEvents.incrementAndGet();
+                }
+            }
+            events.clear();
+            publish(messages);
+        }
+        replaySpilledEvents();
+    }
+
+    private void publish(List<LogMessage> messages) {
+        long dropped = droppedEvents.get() + droppedDebugEvents.get();
+        if (dropped > reportedDroppedEvents) {
+            messages.add(createDroppedEventsMessage(dropped - reportedDroppedEvents));
+            reportedDroppedEvents = dropped;
+        }
+        if (messages.isEmpty()) {
+            return;
         }
 
         try {
-            rabbitTemplate.convertAndSend("LOGS_DIRECT_EXCHANGE", "LOGS_ROUTING_KEY", logMessage);
+            rabbitTemplate.convertAndSend("LOGS_DIRECT_EXCHANGE", "LOGS_ROUTING_KEY", new LogMessageBatch(messages));
         } catch (Exception e) {
-            addError("Failed to send log to RabbitMQ", e);
+            droppedEvents.addAndGet(messages.size());
+            addError("Failed to send " + messages.size() + " logs to RabbitMQ", e);
+        }
+    }
+
+    private LogMessage createDroppedEventsMessage(long dropped) {
+        String message = dropped + " log events were dropped, log buffer was full (dropped DEBUG: " + droppedDebugEvents.get()
+                + ", dropped other: " + droppedEvents.get() + ")";
+        return new LogMessage(applicationName, Level.WARN.toString(), message, LocalDateTime.now(),
+                getClass().getPackageName(), getClass().getSimpleName(), "publish", null, null, null, null, null);
+    }
+
+    private void spill(ILoggingEvent event) {
+        synchronized (spillLock) {
+            try {
+                Files.createDirectories(Path.of(spillDir));
+                try (BufferedWriter writer = Files.newBufferedWriter(getSpillFile(), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    writer.write(objectMapper.writeValueAsString(toLogMessage(event)));
+                    writer.newLine();
+                }
+                spilledEvents.incrementAndGet();
+            } catch (Exception e) {
+                droppedEvents.incrementAndGet();
+                addError("Failed to spill log to disk", e);
+            }
         }
     }
 
-    private String getVal(Map<String, Object> json, String key) {
-        Object orDefault = json.getOrDefault(key, null);
-        if (orDefault == null) return null;
-        String replaced = orDefault.toString().replace("?#?:?", "");
-        if (replaced.isBlank()) {
-            return null;
+    /**
+     * Publishes events spilled to disk while the buffer was full, the file is renamed first so events spilled
+     * in the meantime go to a new file.
+     */
+    private void replaySpilledEvents() {
+        if (overflowPolicy != LogOverflowPolicy.SPILL_TO_DISK) {
+            return;
+        }
+        Path replayFile = Path.of(spillDir, applicationName + "-replay.jsonl");
+        synchronized (spillLock) {
+            if (!Files.exists(getSpillFile())) {
+                return;
+            }
+            try {
+                Files.move(getSpillFile(), replayFile, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                addError("Failed to replay spilled logs", e);
+                return;
+            }
         }
-        return replaced;
+
+        try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+            List<LogMessage> messages = new ArrayList<>(batchSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                messages.add(objectMapper.readValue(line, LogMessage.class));
+                if (messages.size() >= batchSize) {
+                    publish(messages);
+                    messages = new ArrayList<>(batchSize);
+                }
+            }
+            publish(messages);
+            Files.delete(replayFile);
+        } catch (Exception e) {
+            addError("Failed to replay spilled logs", e);
+        }
+    }
+
+    private Path getSpillFile() {
+        return Path.of(spillDir, applicationName + ".jsonl");
+    }
+
+    /**
+     * Builds the message straight from the event: caller data gives the location, {@link JsonLogArgument}s added by
+     * {@link JsonLogger} give the module and the process context. The event is encoded only once, for the json field.
+     */
+    private LogMessage toLogMessage(ILoggingEvent eventObject) {
+        String packageName = null;
+        String className = null;
+        String method = null;
+        Integer line = null;
+        StackTraceElement[] callerData = eventObject.getCallerData();
+        if (callerData != null && callerData.length > 0) {
+            String qualifiedClassName = callerData[0].getClassName();
+            int lastDot = qualifiedClassName.lastIndexOf('.');
+            packageName = lastDot < 0 ? null : qualifiedClassName.substring(0, lastDot);
+            className = qualifiedClassName.substring(lastDot + 1);
+            method = callerData[0].getMethodName();
+            line = callerData[0].getLineNumber() < 0 ? null : callerData[0].getLineNumber();
+        }
+
+        String moduleName = null;
+        String processName = null;
+        String route = null;
+        Object[] arguments = eventObject.getArgumentArray();
+        if (arguments != null) {
+            for (Object argument : arguments) {
+                if (!(argument instanceof JsonLogArgument jsonArgument)) {
+                    continue;
+                }
+                if ("moduleName".equals(jsonArgument.getFieldName())) {
+                    moduleName = (String) jsonArgument.getArgumentValue();
+                } else if (BaseProcessContext.CTX.equals(jsonArgument.getFieldName())
+                        && jsonArgument.getArgumentValue() instanceof Map<?, ?> ctx) {
+                    processName = (String) ctx.get(BaseProcessContext.PROCESS_NAME);
+                    route = (String) ctx.get(BaseProcessContext.ROUTE);
+                }
+            }
+        }
+
+        return new LogMessage(
+                applicationName,
+                eventObject.getLevel().toString(),
+                getMessage(eventObject),
+                LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(eventObject.getTimeStamp()),
+                        ZoneId.systemDefault()
+                ),
+                packageName,
+                className,
+                method,
+                moduleName,
+                processName,
+                route,
+                line,
+                new String(encoder.encode(eventObject), StandardCharsets.UTF_8)
+        );
+    }
+
+    /**
+     * Formatted message with the exception summary, so exceptions stay searchable by the message column.
+     */
+    private String getMessage(ILoggingEvent eventObject) {
+        String message = eventObject.getFormattedMessage();
+        IThrowableProxy throwable = eventObject.getThrowableProxy();
+        if (throwable == null) {
+            return message == null ? "" : message;
+        }
+        String exception = throwable.getClassName() + (throwable.getMessage() == null ? "" : ": " + throwable.getMessage());
+        return message == null ? exception : message + "\n" + exception;
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    public long getDroppedDebugEvents() {
+        return droppedDebugEvents.get();
+    }
+
+    public long getSpilledEvents() {
+        return spilledEvents.get();
     }
 
     @Override
@@ -145,6 +347,14 @@ public class QueueAppender extends ConsoleAppender<ILoggingEvent> implements Sma
         AppenderDelegator<ILoggingEvent> delegate = (AppenderDelegator<ILoggingEvent>) rootLogger.getAppender("JSON_APPENDER");
         this.encoder = delegate.getEncoder();
 
+        if (async) {
+            buffer = new LogRingBuffer<>(bufferSize);
+            publishing = true;
+            publisherThread = new Thread(this::publishLoop, "log-publisher");
+            publisherThread.setDaemon(true);
+            publisherThread.start();
+        }
+
         ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
 
         scheduler.schedule(() -> {
@@ -153,8 +363,26 @@ public class QueueAppender extends ConsoleAppender<ILoggingEvent> implements Sma
         }, 2, TimeUnit.MINUTES);
     }
 
+    /**
+     * Publishes events left in the buffer (waits at most 5 seconds) before the appender stops.
+     */
+    @Override
+    public void stop() {
+        Thread thread = publisherThread;
+        if (thread != null) {
+            publishing = false;
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            publisherThread = null;
+        }
+        super.stop();
+    }
+
     @Override
     public boolean isRunning() {
         return isStarted();
     }
-}
\ No newline at end of file
+}
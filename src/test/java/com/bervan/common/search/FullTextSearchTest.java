@@ -0,0 +1,33 @@
+package com.bervan.common.search;
+
+import com.bervan.common.search.model.SearchOperation;
+import com.bervan.logging.LogEntity;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class FullTextSearchTest {
+
+    @Test
+    void toBooleanModeQuery_requiresWordPrefixes() {
+        Assertions.assertEquals("+connection* +refused*", FullTextSearch.toBooleanModeQuery("%connection refused%"));
+        Assertions.assertEquals("+timeout*", FullTextSearch.toBooleanModeQuery("db timeout"));
+    }
+
+    @Test
+    void hasFullTextTerms_falseForShortWordsOnly() {
+        Assertions.assertTrue(FullTextSearch.hasFullTextTerms("db timeout"));
+        Assertions.assertFalse(FullTextSearch.hasFullTextTerms("id 42"));
+        Assertions.assertFalse(FullTextSearch.hasFullTextTerms("%"));
+    }
+
+    @Test
+    void buildKey_differsForValuesWithoutFullTextTerms() {
+        SearchQueryOption options = new SearchQueryOption(LogEntity.class);
+        SearchRequest words = new SearchRequest();
+        words.addCriterion("G1", LogEntity.class, "message", SearchOperation.LIKE_OPERATION, "timeout");
+        SearchRequest shortWords = new SearchRequest();
+        shortWords.addCriterion("G1", LogEntity.class, "message", SearchOperation.LIKE_OPERATION, "db");
+
+        Assertions.assertNotEquals(SearchQueryPlanCache.buildKey(words, options), SearchQueryPlanCache.buildKey(shortWords, options));
+    }
+}
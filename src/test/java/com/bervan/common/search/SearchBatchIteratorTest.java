@@ -0,0 +1,88 @@
+package com.bervan.common.search;
+
+import com.bervan.asynctask.AsyncTask;
+import com.bervan.common.search.model.KeysetCursor;
+import com.bervan.common.search.model.SearchResponse;
+import com.bervan.common.search.model.SortDirection;
+import com.bervan.common.user.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+class SearchBatchIteratorTest {
+
+    @Test
+    void streamsOwnedEntityInKeysetBatches() {
+        User owner = new User();
+        owner.setId(UUID.randomUUID());
+        List<AsyncTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            AsyncTask task = new AsyncTask();
+            task.setId(new UUID(0, i));
+            task.addOwner(owner);
+            tasks.add(task);
+        }
+
+        List<Object> cursorIds = new ArrayList<>();
+        int[] cleared = new int[1];
+        SearchQueryOption options = new SearchQueryOption(AsyncTask.class);
+        options.setSortField("id");
+        options.setSortDirection(SortDirection.ASC);
+        SearchBatchIterator<AsyncTask> iterator = new SearchBatchIterator<>(options, 2, batchOptions -> {
+            Assertions.assertTrue(batchOptions.isKeysetPagination());
+            KeysetCursor after = batchOptions.getKeysetAfter();
+            cursorIds.add(after == null ? null : after.getId());
+            List<AsyncTask> batch = tasks.stream()
+                    .filter(task -> after == null || task.getId().compareTo((UUID) after.getId()) > 0)
+                    .sorted(Comparator.comparing(AsyncTask::getId))
+                    .limit(batchOptions.getPageSize())
+                    .toList();
+            SearchResponse<AsyncTask> response = new SearchResponse<>(batch, batch.size(), 0, null);
+            if (!batch.isEmpty()) {
+                response.setNextPageCursor(new KeysetCursor("id", null, batch.get(batch.size() - 1).getId()));
+            }
+            return response;
+        }, () -> cleared[0]++);
+
+        List<AsyncTask> streamed = new ArrayList<>();
+        iterator.forEachRemaining(streamed::add);
+
+        Assertions.assertEquals(tasks, streamed);
+        Assertions.assertTrue(streamed.stream().allMatch(task -> task.getOwners().contains(owner)));
+        Assertions.assertEquals(Arrays.asList(null, new UUID(0, 1), new UUID(0, 3)), cursorIds);
+        Assertions.assertEquals(2, cleared[0]);
+    }
+
+    @Test
+    void pagesWithOffsetWhenSortKeyIsNullable() {
+        List<AsyncTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            AsyncTask task = new AsyncTask();
+            task.setId(new UUID(0, i));
+            tasks.add(task);
+        }
+
+        List<Integer> pages = new ArrayList<>();
+        SearchQueryOption options = new SearchQueryOption(AsyncTask.class);
+        options.setSortField("status");
+        options.setSortDirection(SortDirection.ASC);
+        SearchBatchIterator<AsyncTask> iterator = new SearchBatchIterator<>(options, 2, batchOptions -> {
+            pages.add(batchOptions.getPage());
+            int from = Math.min(tasks.size(), batchOptions.getPage() * batchOptions.getPageSize());
+            List<AsyncTask> batch = tasks.subList(from, Math.min(tasks.size(), from + batchOptions.getPageSize()));
+            return new SearchResponse<>(batch, batch.size(), batchOptions.getPage(), null);
+        }, () -> {
+        });
+
+        List<AsyncTask> streamed = new ArrayList<>();
+        iterator.forEachRemaining(streamed::add);
+
+        Assertions.assertEquals(tasks, streamed);
+        Assertions.assertEquals(List.of(0, 1), pages);
+    }
+}
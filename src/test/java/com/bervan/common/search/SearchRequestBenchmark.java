@@ -0,0 +1,91 @@
+package com.bervan.common.search;
+
+import com.bervan.common.search.model.Operator;
+import com.bervan.common.search.model.SearchOperation;
+import com.bervan.logging.LogEntity;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per request work done before Criteria are built, for requests shaped like the quick filter ones
+ * (one OR group with many LIKE criteria plus owner and deleted groups). Time per operation should grow linearly
+ * with criteriaCount; streamLookup shows the previous quadratic criterion lookup for comparison.
+ * <p>
+ * Not a unit test - run with main() from the IDE or:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.bervan.common.search.SearchRequestBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchRequestBenchmark {
+    private static final List<String> TEXT_FIELDS = List.of("applicationName", "logLevel", "className", "methodName",
+            "processName", "moduleName", "packageName", "route", "message");
+
+    @Param({"10", "100", "1000"})
+    public int criteriaCount;
+
+    private SearchRequest searchRequest;
+    private SearchQueryOption options;
+    private SearchRequestOptimizer optimizer;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SearchRequestBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Setup
+    public void setUp() {
+        searchRequest = new SearchRequest();
+        searchRequest.addDeletedFalseCriteria(LogEntity.class);
+        for (int i = 0; i < criteriaCount; i++) {
+            searchRequest.addCriterion("TEXT_FILTER_GROUP", Operator.OR_OPERATOR, LogEntity.class,
+                    TEXT_FIELDS.get(i % TEXT_FIELDS.size()), SearchOperation.LIKE_OPERATION, "%value" + i + "%");
+        }
+
+        options = new SearchQueryOption(LogEntity.class);
+        optimizer = new SearchRequestOptimizer();
+        ReflectionTestUtils.setField(optimizer, "enabled", true);
+    }
+
+    /**
+     * The lookup done by the predicate builder for every criterion of every group.
+     */
+    @Benchmark
+    public void indexedLookup(Blackhole blackhole) {
+        for (Group group : searchRequest.groups) {
+            for (String criterionId : group.criteriaIds) {
+                blackhole.consume(searchRequest.getCriterion(criterionId));
+            }
+        }
+    }
+
+    @Benchmark
+    public void streamLookup(Blackhole blackhole) {
+        for (Group group : searchRequest.groups) {
+            for (String criterionId : group.criteriaIds) {
+                blackhole.consume(searchRequest.criteria.stream().filter(criterion -> criterion.id.equals(criterionId)).findFirst().get());
+            }
+        }
+    }
+
+    @Benchmark
+    public String planKey() {
+        return SearchQueryPlanCache.buildKey(searchRequest, options);
+    }
+
+    @Benchmark
+    public SearchRequest optimize() {
+        return optimizer.optimize(searchRequest, LogEntity.class);
+    }
+}
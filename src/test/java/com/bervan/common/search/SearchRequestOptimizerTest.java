@@ -0,0 +1,69 @@
+package com.bervan.common.search;
+
+import com.bervan.asynctask.AsyncTask;
+import com.bervan.common.search.model.Operator;
+import com.bervan.common.search.model.SearchOperation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+class SearchRequestOptimizerTest {
+    private SearchRequestOptimizer optimizer;
+
+    @BeforeEach
+    void setUp() {
+        optimizer = new SearchRequestOptimizer();
+        ReflectionTestUtils.setField(optimizer, "enabled", true);
+    }
+
+    @Test
+    void optimize_dropsNullTautologyOnPlainColumn() {
+        SearchRequest request = new SearchRequest();
+        request.addCriterion("G1", Operator.OR_OPERATOR, AsyncTask.class, "status", SearchOperation.IS_NULL_OPERATION, null);
+        request.addCriterion("G1", Operator.OR_OPERATOR, AsyncTask.class, "status", SearchOperation.IS_NOT_NULL_OPERATION, null);
+
+        SearchRequest optimized = optimizer.optimize(request, AsyncTask.class);
+
+        Assertions.assertTrue(optimized.groups.isEmpty());
+    }
+
+    @Test
+    void optimize_keepsNullTautologyOnRelation() {
+        SearchRequest request = new SearchRequest();
+        request.addCriterion("G1", Operator.OR_OPERATOR, AsyncTask.class, "[owners].id", SearchOperation.IS_NULL_OPERATION, null);
+        request.addCriterion("G1", Operator.OR_OPERATOR, AsyncTask.class, "[owners].id", SearchOperation.IS_NOT_NULL_OPERATION, null);
+
+        SearchRequest optimized = optimizer.optimize(request, AsyncTask.class);
+
+        Assertions.assertEquals(2, optimized.criteria.size());
+        Assertions.assertEquals(List.of(SearchOperation.IS_NULL_OPERATION, SearchOperation.IS_NOT_NULL_OPERATION),
+                optimized.criteria.stream().map(criterion -> criterion.operator).toList());
+    }
+
+    @Test
+    void optimize_keepsNullTautologyOnCollectionField() {
+        SearchRequest request = new SearchRequest();
+        request.addCriterion("G1", Operator.OR_OPERATOR, AsyncTask.class, "history", SearchOperation.IS_NULL_OPERATION, null);
+        request.addCriterion("G1", Operator.OR_OPERATOR, AsyncTask.class, "history", SearchOperation.IS_NOT_NULL_OPERATION, null);
+
+        SearchRequest optimized = optimizer.optimize(request, AsyncTask.class);
+
+        Assertions.assertEquals(2, optimized.criteria.size());
+    }
+
+    @Test
+    void optimize_collapsesEqualsIntoIn() {
+        SearchRequest request = new SearchRequest();
+        request.addCriterion("G1", Operator.OR_OPERATOR, AsyncTask.class, "status", SearchOperation.EQUALS_OPERATION, "NEW");
+        request.addCriterion("G1", Operator.OR_OPERATOR, AsyncTask.class, "status", SearchOperation.EQUALS_OPERATION, "IN_PROGRESS");
+
+        SearchRequest optimized = optimizer.optimize(request, AsyncTask.class);
+
+        Assertions.assertEquals(1, optimized.criteria.size());
+        Assertions.assertEquals(SearchOperation.IN_OPERATION, optimized.criteria.get(0).operator);
+        Assertions.assertEquals(List.of("NEW", "IN_PROGRESS"), optimized.criteria.get(0).value);
+    }
+}
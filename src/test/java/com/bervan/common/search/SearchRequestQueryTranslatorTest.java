@@ -457,4 +457,33 @@ class SearchRequestQueryTranslatorTest {
         Criterion c1 = request.criteria.get(0);
         Assertions.assertEquals("test value", c1.value);
     }
+
+    @Test
+    void translateQuery_andBindsTighterThanOr() {
+        SearchRequest request = SearchRequestQueryTranslator.translateQuery(
+                "logLevel = 'ERROR' | logLevel = 'WARN' & methodName = 'translate'", LogEntity.class);
+
+        Assertions.assertEquals(3, request.criteria.size());
+        Assertions.assertEquals(3, request.groups.size());
+        // G4: G2 & G3, FINAL: G1 | G4
+        Assertions.assertEquals(List.of("G2", "G3"), request.mergedGroups.get("G4").get(Operator.AND_OPERATOR));
+        Assertions.assertEquals(List.of("G1", "G4"), request.mergedGroups.get(SearchRequest.FINAL_GROUP_CONSTANT).get(Operator.OR_OPERATOR));
+    }
+
+    @Test
+    void translateQuery_syntaxErrorReportsPosition() {
+        SearchRequestQueryTranslator.QuerySyntaxException exception = Assertions.assertThrows(
+                SearchRequestQueryTranslator.QuerySyntaxException.class,
+                () -> SearchRequestQueryTranslator.translateQuery("logLevel = 'ERROR' & methodName 'x'", LogEntity.class));
+
+        Assertions.assertEquals(32, exception.getPosition());
+    }
+
+    @Test
+    void suggest_fieldsAndOperators() {
+        Assertions.assertTrue(SearchRequestQueryTranslator.suggest("methodName = 'x' & logl", LogEntity.class).contains("logLevel"));
+        Assertions.assertTrue(SearchRequestQueryTranslator.suggest("logLevel ", LogEntity.class).containsAll(List.of("=", "IS NULL", "NOT IN")));
+        Assertions.assertEquals(List.of("IS NULL", "IS NOT NULL"), SearchRequestQueryTranslator.suggest("logLevel is", LogEntity.class));
+        Assertions.assertTrue(SearchRequestQueryTranslator.suggest("logLevel = 'ERR", LogEntity.class).isEmpty());
+    }
 }
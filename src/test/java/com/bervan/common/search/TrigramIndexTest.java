@@ -0,0 +1,45 @@
+package com.bervan.common.search;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class TrigramIndexTest {
+
+    @Test
+    void findMatching_likeSemantics() {
+        TrigramIndex.ValueIndex index = new TrigramIndex.ValueIndex();
+        index.add("SearchService");
+        index.add("SearchRequestQueryTranslator");
+        index.add("AuthService");
+        index.add("AuthService");
+
+        Assertions.assertEquals(List.of("SearchService", "AuthService"), index.findMatching("%service%"));
+        Assertions.assertEquals(List.of("SearchService"), index.findMatching("search%service"));
+        Assertions.assertEquals(List.of("AuthService"), index.findMatching("%th_erv%"));
+        Assertions.assertEquals(List.of("SearchService", "SearchRequestQueryTranslator", "AuthService"), index.findMatching("%e%"));
+        Assertions.assertTrue(index.findMatching("%missing%").isEmpty());
+    }
+
+    @Test
+    void findMatching_missesValuesNotAddedToIndex() {
+        TrigramIndex.ValueIndex index = new TrigramIndex.ValueIndex();
+        index.add("SearchService");
+        // "SearchController" is in the table, inserted by another instance after the last refresh
+
+        Assertions.assertEquals(List.of("SearchService"), index.findMatching("%search%"));
+
+        index.add("SearchController");
+        Assertions.assertEquals(List.of("SearchService", "SearchController"), index.findMatching("%search%"));
+    }
+
+    @Test
+    void findMatching_isNotAccentInsensitive() {
+        TrigramIndex.ValueIndex index = new TrigramIndex.ValueIndex();
+        index.add("CaféService");
+
+        Assertions.assertEquals(List.of("CaféService"), index.findMatching("%CAFÉ%"));
+        Assertions.assertTrue(index.findMatching("%cafe%").isEmpty());
+    }
+}
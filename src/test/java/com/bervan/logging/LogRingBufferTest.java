@@ -0,0 +1,67 @@
+package com.bervan.logging;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+class LogRingBufferTest {
+
+    @Test
+    void offerAndDrain_boundedFifo() {
+        LogRingBuffer<Integer> buffer = new LogRingBuffer<>(5);
+        Assertions.assertEquals(8, buffer.capacity());
+
+        for (int i = 0; i < 8; i++) {
+            Assertions.assertTrue(buffer.offer(i));
+        }
+        Assertions.assertFalse(buffer.offer(8));
+        Assertions.assertEquals(8, buffer.size());
+
+        List<Integer> drained = new ArrayList<>();
+        Assertions.assertEquals(3, buffer.drainTo(drained, 3));
+        Assertions.assertEquals(List.of(0, 1, 2), drained);
+        Assertions.assertTrue(buffer.offer(8));
+
+        drained.clear();
+        buffer.drainTo(drained, 100);
+        Assertions.assertEquals(List.of(3, 4, 5, 6, 7, 8), drained);
+        Assertions.assertNull(buffer.poll());
+        Assertions.assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void offer_concurrentProducers() throws InterruptedException {
+        LogRingBuffer<Integer> buffer = new LogRingBuffer<>(64);
+        int producers = 4;
+        int perProducer = 10_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int offset = p * perProducer;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(offset + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        Set<Integer> received = new HashSet<>();
+        while (received.size() < producers * perProducer) {
+            Integer element = buffer.poll();
+            if (element != null) {
+                Assertions.assertTrue(received.add(element));
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertNull(buffer.poll());
+    }
+}
@@ -0,0 +1,75 @@
+package com.bervan.logging;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+class LogSegmentTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writeAndRead_roundTripWithZoneMap() throws Exception {
+        LocalDateTime day = LocalDateTime.of(2024, 3, 1, 0, 0);
+        List<LogEntity> logs = new ArrayList<>();
+        logs.add(log(day.plusHours(5), "ERROR", "SearchService", "failed"));
+        logs.add(log(day.plusHours(1), "INFO", "SearchService", null));
+        logs.add(log(day.plusHours(3), "INFO", "AuthService", "logged in"));
+        Path file = dir.resolve("app-1.seg");
+        LogSegment.write(file, "app", logs);
+
+        List<LogEntity> all = LogSegment.read(file, null, null, log -> true);
+        Assertions.assertEquals(3, all.size());
+        Assertions.assertEquals(day.plusHours(1), all.get(0).getTimestamp());
+        Assertions.assertNull(all.get(0).getMessage());
+        Assertions.assertEquals("AuthService", all.get(1).getClassName());
+        Assertions.assertEquals("app", all.get(2).getApplicationName());
+        Assertions.assertEquals("ERROR", all.get(2).getLogLevel());
+        Assertions.assertEquals(42, all.get(2).getLineNumber());
+
+        List<LogEntity> infoFromTwo = LogSegment.read(file, day.plusHours(2), null, log -> "INFO".equals(log.getLogLevel()));
+        Assertions.assertEquals(1, infoFromTwo.size());
+        Assertions.assertEquals("logged in", infoFromTwo.get(0).getMessage());
+
+        Assertions.assertTrue(LogSegment.read(file, day.plusDays(1), null, log -> true).isEmpty());
+    }
+
+    @Test
+    void read_decodesMessageAndJsonOnlyForMatchingRows() throws Exception {
+        LocalDateTime day = LocalDateTime.of(2024, 3, 1, 0, 0);
+        List<LogEntity> logs = new ArrayList<>();
+        logs.add(log(day.plusHours(1), "ERROR", "SearchService", "failed"));
+        logs.add(log(day.plusHours(2), "INFO", "SearchService", "started"));
+        logs.get(0).setJson("{\"error\":true}");
+        Path file = dir.resolve("app-1.seg");
+        LogSegment.write(file, "app", logs);
+
+        // the filter does not read message or json, so it runs before they are decoded
+        List<LogEntity> errors = LogSegment.read(file, null, null,
+                log -> log.getMessage() == null && log.getJson() == null && "ERROR".equals(log.getLogLevel()), Set.of("logLevel"));
+        Assertions.assertEquals(1, errors.size());
+        Assertions.assertEquals("failed", errors.get(0).getMessage());
+        Assertions.assertEquals("{\"error\":true}", errors.get(0).getJson());
+
+        List<LogEntity> started = LogSegment.read(file, null, null, log -> "started".equals(log.getMessage()), Set.of("message"));
+        Assertions.assertEquals(1, started.size());
+        Assertions.assertEquals(day.plusHours(2), started.get(0).getTimestamp());
+    }
+
+    private static LogEntity log(LocalDateTime timestamp, String level, String className, String message) {
+        LogEntity log = new LogEntity();
+        log.setTimestamp(timestamp);
+        log.setLogLevel(level);
+        log.setClassName(className);
+        log.setMessage(message);
+        log.setLineNumber(42);
+        return log;
+    }
+}